@@ -0,0 +1,69 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Single pass selection over the allied robots in a SensorSnapshot. Each
+ * robot is scored exactly once according to one of the scoring rules below
+ * and the index of the lowest score wins. Nothing is sensed or allocated
+ * while scanning, so a full squad can be searched every turn.
+ */
+public class AllySelector {
+	// score = current energon level
+	public final static int LOWEST_ENERGON = 0;
+	// score = squared distance from the given location
+	public final static int CLOSEST = 1;
+	// score = current energon level, non-archons adjacent to the location only
+	public final static int LOWEST_ENERGON_ADJACENT = 2;
+
+	private final static int ARCHON = RobotType.ARCHON.ordinal();
+
+	private final SensorSnapshot snapshot;
+
+	public AllySelector(SensorSnapshot snap) {
+		snapshot = snap;
+	}
+
+	/*
+	 * Scores the allies at snapshot indices [0, end) relative to (fromX,
+	 * fromY) and returns the index of the best one, or -1 if none qualify.
+	 * Ties go to the robot sensed first.
+	 */
+	public int select(int scoring, int end, int fromX, int fromY) {
+		// locals are cheaper than field reads inside the loop
+		int[] team = snapshot.team;
+		int[] type = snapshot.type;
+		double[] energon = snapshot.energon;
+		int[] x = snapshot.x;
+		int[] y = snapshot.y;
+		int myTeam = snapshot.myTeam;
+
+		int best = -1;
+		double bestScore = Double.MAX_VALUE;
+		for (int i = 0; i < end; i++) {
+			if (team[i] != myTeam)
+				continue;
+
+			double score;
+			if (scoring == LOWEST_ENERGON)
+				score = energon[i];
+			else {
+				int xDiff = x[i] - fromX;
+				int yDiff = y[i] - fromY;
+				int distSq = xDiff * xDiff + yDiff * yDiff;
+				if (scoring == CLOSEST)
+					score = distSq;
+				else if (distSq > 2 || type[i] == ARCHON)
+					continue;
+				else
+					score = energon[i];
+			}
+
+			if (score < bestScore) {
+				bestScore = score;
+				best = i;
+			}
+		}
+		return best;
+	}
+}
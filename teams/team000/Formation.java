@@ -0,0 +1,223 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Squad formation shared through one FORMATION record per archon. The archon
+ * hands each of its troops a slot and broadcasts the plan: the order, an
+ * anchor square, the target and a heading, then one int per member. Every
+ * member works out the square of its own slot from that alone, without
+ * sensing anything or hearing from the others.
+ *
+ * Record payload:
+ *   ORDER    the squad's order, as in ORDERS
+ *   ANCHOR   packed square the slots are laid out around
+ *   TARGET   packed tower to attack, or Radio.NO_LOCATION
+ *   HEADING  Direction ordinal the formation faces, or -1
+ *   then per member: robot ID << SLOT_BITS | slot number
+ *
+ * Slots lie on the ring two squares out from the anchor, front first, so
+ * the squares right next to an archon stay free for spawning. They are
+ * defined facing north and turned in quarter turns to the nearest compass
+ * point of the heading.
+ *
+ * The archon keeps a member's slot for as long as it keeps seeing it, and a
+ * little longer, so members do not swap places every round.
+ */
+public class Formation {
+	public final static int ORDER = 0;
+	public final static int ANCHOR = 1;
+	public final static int TARGET = 2;
+	public final static int HEADING = 3;
+	public final static int MEMBERS = 4;
+
+	public final static int MAX_SLOTS = 12;
+	private final static int SLOT_BITS = 4;
+	private final static int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+	// facing north, i.e. towards negative y
+	private final static int[] SLOT_DX = { 0, -1, 1, -2, 2, -2, 2, -2, 2, -1,
+			1, 0 };
+	private final static int[] SLOT_DY = { -2, -2, -2, -1, -1, 0, 0, 1, 1, 2,
+			2, 2 };
+
+	// rounds a member may go unseen before its slot is given away
+	private final static int MEMBER_TIMEOUT = 10;
+
+	private final static int ARCHON = RobotType.ARCHON.ordinal();
+	private final static int TOWER = RobotType.TOWER.ordinal();
+	private final static Direction[] DIRECTIONS = Direction.values();
+
+	private final SensorSnapshot snapshot;
+
+	// archon side: who holds each slot and when it was last seen
+	private final int[] slotMember = new int[MAX_SLOTS];
+	private final int[] slotSeen = new int[MAX_SLOTS];
+	// one past the highest slot in use, so the loops skip the empty tail
+	private int slotEnd = 0;
+	private final int[] otherArchons = new int[8];
+
+	// member side: the plan last read
+	public int order = -1;
+	public MapLocation target = null;
+	public Direction heading = null;
+	public MapLocation slot = null;
+
+	public Formation(SensorSnapshot snap) {
+		snapshot = snap;
+	}
+
+	/***************************************************************************
+	 * Archon side
+	 **************************************************************************/
+
+	/*
+	 * Brings the slots up to date with this round's snapshot. Our troops are
+	 * the allied ground robots in view, towers and archons aside, that are
+	 * no closer to another archon we can see than to us.
+	 */
+	public void assign(int myX, int myY) {
+		snapshot.senseGround();
+		int round = Clock.getRoundNum();
+		int[] team = snapshot.team;
+		int[] type = snapshot.type;
+		int[] x = snapshot.x;
+		int[] y = snapshot.y;
+		int myTeam = snapshot.myTeam;
+		int end = snapshot.groundCount;
+
+		int archons = 0;
+		for (int i = 0; i < end && archons < otherArchons.length; i++) {
+			if (team[i] == myTeam && type[i] == ARCHON)
+				otherArchons[archons++] = i;
+		}
+
+		for (int i = 0; i < end; i++) {
+			if (team[i] != myTeam || type[i] == ARCHON || type[i] == TOWER)
+				continue;
+
+			int xDiff = x[i] - myX;
+			int yDiff = y[i] - myY;
+			int distSq = xDiff * xDiff + yDiff * yDiff;
+			boolean ours = true;
+			for (int a = 0; a < archons && ours; a++) {
+				int o = otherArchons[a];
+				xDiff = x[i] - x[o];
+				yDiff = y[i] - y[o];
+				ours = xDiff * xDiff + yDiff * yDiff >= distSq;
+			}
+			if (ours)
+				see(snapshot.robots[i].getID(), round);
+		}
+
+		for (int s = 0; s < slotEnd; s++) {
+			if (slotMember[s] != 0 && round - slotSeen[s] > MEMBER_TIMEOUT)
+				slotMember[s] = 0;
+		}
+		while (slotEnd > 0 && slotMember[slotEnd - 1] == 0)
+			slotEnd--;
+	}
+
+	/*
+	 * Marks a member as seen, giving it the first free slot if it has none.
+	 */
+	private void see(int id, int round) {
+		int free = -1;
+		for (int s = 0; s < slotEnd; s++) {
+			if (slotMember[s] == id) {
+				slotSeen[s] = round;
+				return;
+			}
+			if (free == -1 && slotMember[s] == 0)
+				free = s;
+		}
+		if (free == -1) {
+			if (slotEnd == MAX_SLOTS)
+				return;
+			free = slotEnd++;
+		}
+		slotMember[free] = id;
+		slotSeen[free] = round;
+	}
+
+	/*
+	 * Queues this round's FORMATION record, if there is anybody in it.
+	 */
+	public void queue(Radio radio, int squadOrder, MapLocation anchor,
+			MapLocation towerLoc, Direction dir) {
+		if (slotEnd == 0)
+			return;
+
+		radio.startRecord(Radio.FORMATION);
+		radio.put(squadOrder);
+		radio.putLocation(anchor);
+		radio.putLocation(towerLoc);
+		radio.put(dir == null ? -1 : dir.ordinal());
+		for (int s = 0; s < slotEnd; s++) {
+			if (slotMember[s] != 0)
+				radio.put(slotMember[s] << SLOT_BITS | s);
+		}
+	}
+
+	/***************************************************************************
+	 * Member side
+	 **************************************************************************/
+
+	/*
+	 * The slot a FORMATION record gives the robot, or -1 if it is not in it.
+	 */
+	public static int slotOf(Radio radio, int record, int id) {
+		int[] ints = radio.ints(record);
+		int offset = radio.offset(record);
+		int end = offset + radio.length(record);
+		for (int at = offset + MEMBERS; at < end; at++) {
+			if (ints[at] >>> SLOT_BITS == id)
+				return ints[at] & SLOT_MASK;
+		}
+		return -1;
+	}
+
+	/*
+	 * The first FORMATION record received this round that has the robot in
+	 * it, or -1.
+	 */
+	public static int findMember(Radio radio, int id) {
+		for (int r = radio.first(Radio.FORMATION); r != -1; r = radio.next(r)) {
+			if (slotOf(radio, r, id) != -1)
+				return r;
+		}
+		return -1;
+	}
+
+	/*
+	 * Takes in the plan of a FORMATION record and works out where our slot
+	 * is. Returns false, leaving slot null, if the record has no slot for us.
+	 */
+	public boolean read(Radio radio, int record, int id) {
+		order = radio.get(record, ORDER);
+		target = radio.getLocation(record, TARGET);
+		int dir = radio.get(record, HEADING);
+		heading = dir < 0 ? null : DIRECTIONS[dir];
+
+		int s = slotOf(radio, record, id);
+		if (s == -1 || s >= MAX_SLOTS) {
+			slot = null;
+			return false;
+		}
+
+		int anchor = radio.get(record, ANCHOR);
+		int dx = SLOT_DX[s];
+		int dy = SLOT_DY[s];
+		// quarter turns clockwise, rounding diagonals to the next compass point
+		int turns = dir < 0 || dir > 7 ? 0 : ((dir + 1) >> 1) & 3;
+		for (int t = 0; t < turns; t++) {
+			int swap = dx;
+			dx = -dy;
+			dy = swap;
+		}
+		slot = new MapLocation(Geometry.unpackX(anchor) + dx, Geometry
+				.unpackY(anchor)
+				+ dy);
+		return true;
+	}
+}
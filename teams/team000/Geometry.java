@@ -0,0 +1,77 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Integer grid geometry. Everything here stays in int arithmetic so it is
+ * cheap enough to call inside the per-robot loops; compare squared
+ * distances against squared thresholds instead of taking square roots.
+ */
+public class Geometry {
+	// indexed by (sign(dx) + 1) * 3 + (sign(dy) + 1)
+	private final static Direction[] DIRECTION_TABLE = {
+			Direction.NORTH_WEST, Direction.WEST, Direction.SOUTH_WEST,
+			Direction.NORTH, Direction.NONE, Direction.SOUTH,
+			Direction.NORTH_EAST, Direction.EAST, Direction.SOUTH_EAST };
+
+	/*
+	 * Squared euclidean distance between two squares.
+	 */
+	public static int distanceSquared(int x1, int y1, int x2, int y2) {
+		int xDiff = x1 - x2;
+		int yDiff = y1 - y2;
+		return xDiff * xDiff + yDiff * yDiff;
+	}
+
+	public static int distanceSquared(MapLocation from, MapLocation to) {
+		return distanceSquared(from.getX(), from.getY(), to.getX(), to.getY());
+	}
+
+	/*
+	 * Chebyshev (king move) distance, i.e. the number of moves it takes to get
+	 * from one square to the other on an open map.
+	 */
+	public static int chebyshev(int x1, int y1, int x2, int y2) {
+		int xDiff = x1 > x2 ? x1 - x2 : x2 - x1;
+		int yDiff = y1 > y2 ? y1 - y2 : y2 - y1;
+		return xDiff > yDiff ? xDiff : yDiff;
+	}
+
+	public static int chebyshev(MapLocation from, MapLocation to) {
+		return chebyshev(from.getX(), from.getY(), to.getX(), to.getY());
+	}
+
+	/*
+	 * The compass direction that heads from one square towards another, or
+	 * NONE if they are the same square.
+	 */
+	public static Direction directionTo(int fromX, int fromY, int toX, int toY) {
+		int col = toX > fromX ? 6 : (toX < fromX ? 0 : 3);
+		int row = toY > fromY ? 2 : (toY < fromY ? 0 : 1);
+		return DIRECTION_TABLE[col + row];
+	}
+
+	public static Direction directionTo(MapLocation from, MapLocation to) {
+		return directionTo(from.getX(), from.getY(), to.getX(), to.getY());
+	}
+
+	/*
+	 * Packs a map square into a single int, for caching and sending in
+	 * message ints. Both coordinates must fit in 16 bits.
+	 */
+	public static int pack(int x, int y) {
+		return (x << 16) | (y & 0xFFFF);
+	}
+
+	public static int pack(MapLocation loc) {
+		return pack(loc.getX(), loc.getY());
+	}
+
+	public static int unpackX(int packed) {
+		return packed >> 16;
+	}
+
+	public static int unpackY(int packed) {
+		return (packed << 16) >> 16;
+	}
+}
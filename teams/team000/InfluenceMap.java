@@ -0,0 +1,150 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Coarse map of where the enemy is, over the same area as a TerrainGrid but
+ * in cells of four by four squares. Each cell holds two scores:
+ *
+ * - heat, HEAT added for every fresh sighting of an enemy robot in the cell
+ *   and halved every eight rounds, so it measures how many enemies have
+ *   been there and for how long lately
+ * - the number of enemy towers whose attack range reaches into the cell
+ *
+ * Nothing is ever swept over the whole map. Heat is decayed when a cell is
+ * touched, from the round it was last brought up to date, and tower counts
+ * only change when a tower changes hands. MapKnowledge feeds the map, so it
+ * takes in our own sensing and what teammates broadcast alike.
+ */
+public class InfluenceMap {
+	private final static int CELL_SHIFT = 2;
+	public final static int CELLS_WIDE = (TerrainGrid.WIDTH >> CELL_SHIFT) + 1;
+	public final static int CELLS_HIGH = (TerrainGrid.HEIGHT >> CELL_SHIFT) + 1;
+
+	public final static int HEAT = 16;
+	// heat halves every 1 << HALF_LIFE_SHIFT rounds
+	private final static int HALF_LIFE_SHIFT = 3;
+
+	// extra rounds planners that avoid danger charge for a square: per enemy
+	// tower in reach, and one per (1 << HEAT_COST_SHIFT) heat up to a cap
+	private final static int TOWER_COST = 6;
+	private final static int HEAT_COST_SHIFT = 5;
+	private final static int MAX_HEAT_COST = 24;
+
+	private final static int TOWER_REACH = (int) Math.sqrt(RobotType.TOWER
+			.attackRadiusMaxSquared());
+
+	// map coordinates of the corner of cell 0
+	private final int originX, originY;
+
+	private final int[] heat = new int[CELLS_WIDE * CELLS_HIGH];
+	// round each cell's heat was last decayed to
+	private final int[] heatRound = new int[CELLS_WIDE * CELLS_HIGH];
+	private final int[] towers = new int[CELLS_WIDE * CELLS_HIGH];
+
+	private int round = 0;
+
+	public InfluenceMap(TerrainGrid terrain) {
+		originX = terrain.mapX(0);
+		originY = terrain.mapY(0);
+	}
+
+	/*
+	 * Sets the round heat is decayed to.
+	 */
+	public void setRound(int now) {
+		round = now;
+	}
+
+	/*
+	 * Cell of a map square, or -1 if it lies outside the map.
+	 */
+	public int cell(int x, int y) {
+		int gx = x - originX;
+		int gy = y - originY;
+		if (gx < 0 || gy < 0 || gx >= TerrainGrid.WIDTH
+				|| gy >= TerrainGrid.HEIGHT)
+			return -1;
+		return (gy >> CELL_SHIFT) * CELLS_WIDE + (gx >> CELL_SHIFT);
+	}
+
+	/*
+	 * Records a sighting of an enemy at a packed square (see Geometry.pack)
+	 * in the given round. Older sightings count for less, as if they had
+	 * been decaying since.
+	 */
+	public void addEnemy(int pos, int seen) {
+		int c = cell(Geometry.unpackX(pos), Geometry.unpackY(pos));
+		if (c == -1)
+			return;
+		int halvings = (round - seen) >> HALF_LIFE_SHIFT;
+		if (halvings < 0)
+			halvings = 0;
+		if (halvings < 5)
+			heat[c] = decayed(c) + (HEAT >> halvings);
+	}
+
+	/*
+	 * Adds (change 1) or removes (change -1) an enemy tower at a packed
+	 * square, to or from every cell it can reach into.
+	 */
+	public void changeTower(int pos, int change) {
+		int gx = Geometry.unpackX(pos) - originX;
+		int gy = Geometry.unpackY(pos) - originY;
+		int left = Math.max(gx - TOWER_REACH, 0) >> CELL_SHIFT;
+		int right = Math.min(gx + TOWER_REACH, TerrainGrid.WIDTH - 1)
+				>> CELL_SHIFT;
+		int top = Math.max(gy - TOWER_REACH, 0) >> CELL_SHIFT;
+		int bottom = Math.min(gy + TOWER_REACH, TerrainGrid.HEIGHT - 1)
+				>> CELL_SHIFT;
+		for (int cy = top; cy <= bottom; cy++) {
+			int row = cy * CELLS_WIDE;
+			for (int cx = left; cx <= right; cx++)
+				towers[row + cx] += change;
+		}
+	}
+
+	/*
+	 * The heat of a cell as of this round.
+	 */
+	public int heat(int cell) {
+		return cell < 0 ? 0 : decayed(cell);
+	}
+
+	public int heatAt(int x, int y) {
+		return heat(cell(x, y));
+	}
+
+	/*
+	 * Number of enemy towers that can reach into a cell.
+	 */
+	public int towers(int cell) {
+		return cell < 0 ? 0 : towers[cell];
+	}
+
+	/*
+	 * Extra rounds a planner should charge for entering the square at grid
+	 * coordinates (gx, gy) of the TerrainGrid the map was made for.
+	 */
+	public int cost(int gx, int gy) {
+		int c = (gy >> CELL_SHIFT) * CELLS_WIDE + (gx >> CELL_SHIFT);
+		int cost = towers[c] * TOWER_COST;
+		if (heat[c] != 0) {
+			int heatCost = decayed(c) >> HEAT_COST_SHIFT;
+			cost += heatCost > MAX_HEAT_COST ? MAX_HEAT_COST : heatCost;
+		}
+		return cost;
+	}
+
+	/*
+	 * Brings a cell's heat up to the current round.
+	 */
+	private int decayed(int c) {
+		int halvings = (round - heatRound[c]) >> HALF_LIFE_SHIFT;
+		if (halvings > 0) {
+			heat[c] = halvings > 30 ? 0 : heat[c] >> halvings;
+			heatRound[c] += halvings << HALF_LIFE_SHIFT;
+		}
+		return heat[c];
+	}
+}
@@ -0,0 +1,314 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Everything this robot has learned about the map, kept up to date a little
+ * at a time instead of being sensed again whenever it is needed:
+ *
+ * - terrain, as the known/blocked bitsets of a TerrainGrid
+ * - every tower seen, with its owner and the round it was last seen
+ * - the last position and round each enemy robot was seen at
+ * - an InfluenceMap of enemy concentration and tower threat, fed by the
+ *   fresh sightings and tower changes among the above
+ *
+ * update() folds in this round's sensing snapshot. Towers and enemies can
+ * also be exported into message ints and merged from a teammate's message;
+ * newer sightings always win. Terrain goes in a message of its own, a few
+ * words of the TerrainGrid bitsets at a time (see TerrainGrid.export).
+ *
+ * Exported records are RECORD_INTS ints each: a header, the packed square
+ * (see Geometry.pack) and the round. A tower header is (team ordinal << 1), an
+ * enemy header is (robot ID << 1) | 1.
+ */
+public class MapKnowledge {
+	public final static int RECORD_INTS = 3;
+
+	// owner of a tower we have lost track of
+	public final static int UNKNOWN_TEAM = -1;
+
+	private final static int MAX_TOWERS = 32;
+	private final static int MAX_ENEMIES = 32;
+
+	// enemies not seen for this many rounds are not passed on
+	private final static int ENEMY_MEMORY = 50;
+
+	// terrain bitset words sent per message, 32 squares each
+	private final static int TERRAIN_WORDS = 6;
+
+	private final static int TOWER = RobotType.TOWER.ordinal();
+
+	private final RobotController rc;
+	private final SensorSnapshot snapshot;
+	private final int enemyTeam;
+	final TerrainGrid terrain;
+	final InfluenceMap influence;
+
+	private int updatedRound = -1;
+
+	int towerCount = 0;
+	final int[] towerPos = new int[MAX_TOWERS];
+	final int[] towerTeam = new int[MAX_TOWERS];
+	final int[] towerRound = new int[MAX_TOWERS];
+
+	int enemyCount = 0;
+	final int[] enemyId = new int[MAX_ENEMIES];
+	final int[] enemyPos = new int[MAX_ENEMIES];
+	final int[] enemyRound = new int[MAX_ENEMIES];
+
+	public MapKnowledge(RobotController rC, SensorSnapshot snap) {
+		rc = rC;
+		snapshot = snap;
+		enemyTeam = rc.getTeam().opponent().ordinal();
+		terrain = new TerrainGrid(rc);
+		influence = new InfluenceMap(terrain);
+	}
+
+	/*
+	 * Folds this round's sensing into what we know. Robots are handled once
+	 * per round; the terrain scan then runs until bytecodeLimit and resumes
+	 * on the next call.
+	 */
+	public void update(int bytecodeLimit) {
+		int round = Clock.getRoundNum();
+		if (updatedRound != round) {
+			updatedRound = round;
+			influence.setRound(round);
+			snapshot.senseGround();
+
+			// air robots are only in the snapshot if somebody asked for them
+			int[] type = snapshot.type;
+			for (int i = 0; i < snapshot.count; i++) {
+				int pos = Geometry.pack(snapshot.x[i], snapshot.y[i]);
+				if (type[i] == TOWER)
+					recordTower(pos, snapshot.team[i], round);
+				else if (!snapshot.isAlly(i))
+					recordEnemy(snapshot.robots[i].getID(), pos, round);
+			}
+			updateAlliedTowers(round);
+		}
+
+		terrain.senseAround(rc.getLocation(), rc.getRobotType()
+				.sensorRadius(), bytecodeLimit);
+	}
+
+	/*
+	 * The closest tower we know of that is not ours, or null if there is none.
+	 */
+	public MapLocation closestOtherTower(MapLocation from) {
+		int best = -1;
+		int bestDistSq = 0;
+		for (int i = 0; i < towerCount; i++) {
+			if (towerTeam[i] == snapshot.myTeam)
+				continue;
+			int pos = towerPos[i];
+			int distSq = Geometry.distanceSquared(from.getX(), from.getY(),
+					Geometry.unpackX(pos), Geometry.unpackY(pos));
+			if (best == -1 || distSq < bestDistSq) {
+				best = i;
+				bestDistSq = distSq;
+			}
+		}
+		if (best == -1)
+			return null;
+		return new MapLocation(Geometry.unpackX(towerPos[best]), Geometry
+				.unpackY(towerPos[best]));
+	}
+
+	/*
+	 * Where a mortar at the given square should aim, among the squares at a
+	 * squared distance of minDistSq to maxDistSq from it: an enemy tower if
+	 * one is in range, as a tower never moves out of the way of the shell;
+	 * otherwise the enemy seen within the last maxAge rounds whose cell is
+	 * hottest, being where enemies have been gathering and staying. Returns
+	 * null if there is nothing in range.
+	 */
+	public MapLocation shellTarget(MapLocation from, int minDistSq,
+			int maxDistSq, int maxAge) {
+		int fromX = from.getX();
+		int fromY = from.getY();
+		for (int i = 0; i < towerCount; i++) {
+			if (towerTeam[i] != enemyTeam)
+				continue;
+			int pos = towerPos[i];
+			int x = Geometry.unpackX(pos);
+			int y = Geometry.unpackY(pos);
+			int distSq = Geometry.distanceSquared(fromX, fromY, x, y);
+			if (distSq >= minDistSq && distSq <= maxDistSq)
+				return new MapLocation(x, y);
+		}
+
+		int best = -1;
+		int bestHeat = 0;
+		int oldest = Clock.getRoundNum() - maxAge;
+		for (int i = 0; i < enemyCount; i++) {
+			if (enemyRound[i] < oldest)
+				continue;
+			int pos = enemyPos[i];
+			int x = Geometry.unpackX(pos);
+			int y = Geometry.unpackY(pos);
+			int distSq = Geometry.distanceSquared(fromX, fromY, x, y);
+			if (distSq < minDistSq || distSq > maxDistSq)
+				continue;
+			int heat = influence.heatAt(x, y);
+			if (best == -1 || heat > bestHeat || heat == bestHeat
+					&& enemyRound[i] > enemyRound[best]) {
+				best = i;
+				bestHeat = heat;
+			}
+		}
+		if (best == -1)
+			return null;
+		return new MapLocation(Geometry.unpackX(enemyPos[best]), Geometry
+				.unpackY(enemyPos[best]));
+	}
+
+	/*
+	 * Number of ints export() will write.
+	 */
+	public int exportLength() {
+		return (towerCount + recentEnemies()) * RECORD_INTS;
+	}
+
+	/*
+	 * Writes our tower and recent enemy records into ints from offset on.
+	 * Returns the offset just past the last record.
+	 */
+	public int export(int[] ints, int offset) {
+		for (int i = 0; i < towerCount; i++) {
+			ints[offset++] = towerTeam[i] << 1;
+			ints[offset++] = towerPos[i];
+			ints[offset++] = towerRound[i];
+		}
+		int oldest = Clock.getRoundNum() - ENEMY_MEMORY;
+		for (int i = 0; i < enemyCount; i++) {
+			if (enemyRound[i] < oldest)
+				continue;
+			ints[offset++] = (enemyId[i] << 1) | 1;
+			ints[offset++] = enemyPos[i];
+			ints[offset++] = enemyRound[i];
+		}
+		return offset;
+	}
+
+	/*
+	 * Merges the records in ints[offset, end) sent by a teammate.
+	 */
+	public void merge(int[] ints, int offset, int end) {
+		while (offset + RECORD_INTS <= end) {
+			int header = ints[offset];
+			if ((header & 1) == 0)
+				recordTower(ints[offset + 1], header >> 1, ints[offset + 2]);
+			else
+				recordEnemy(header >>> 1, ints[offset + 1], ints[offset + 2]);
+			offset += RECORD_INTS;
+		}
+	}
+
+	/*
+	 * Number of ints exportTerrain() will write.
+	 */
+	public int terrainExportLength() {
+		return terrain.exportLength(TERRAIN_WORDS);
+	}
+
+	/*
+	 * Writes the next few words of our terrain into ints from offset on.
+	 * Returns the offset just past them.
+	 */
+	public int exportTerrain(int[] ints, int offset) {
+		return terrain.export(ints, offset, TERRAIN_WORDS);
+	}
+
+	/*
+	 * Merges the terrain in ints[offset, end) sent by a teammate.
+	 */
+	public void mergeTerrain(int[] ints, int offset, int end) {
+		terrain.merge(ints, offset, end);
+	}
+
+	private int recentEnemies() {
+		int oldest = Clock.getRoundNum() - ENEMY_MEMORY;
+		int recent = 0;
+		for (int i = 0; i < enemyCount; i++) {
+			if (enemyRound[i] >= oldest)
+				recent++;
+		}
+		return recent;
+	}
+
+	private void recordTower(int pos, int team, int round) {
+		for (int i = 0; i < towerCount; i++) {
+			if (towerPos[i] == pos) {
+				if (towerRound[i] <= round) {
+					if (towerTeam[i] != team) {
+						if (towerTeam[i] == enemyTeam)
+							influence.changeTower(pos, -1);
+						else if (team == enemyTeam)
+							influence.changeTower(pos, 1);
+					}
+					towerTeam[i] = team;
+					towerRound[i] = round;
+				}
+				return;
+			}
+		}
+		if (towerCount < MAX_TOWERS) {
+			towerPos[towerCount] = pos;
+			towerTeam[towerCount] = team;
+			towerRound[towerCount] = round;
+			towerCount++;
+			if (team == enemyTeam)
+				influence.changeTower(pos, 1);
+		}
+	}
+
+	/*
+	 * Remembers where an enemy was, replacing the stalest sighting once the
+	 * table is full. Only sightings newer than the one we had heat up the
+	 * influence map, so an enemy seen by several of us counts once a round.
+	 */
+	private void recordEnemy(int id, int pos, int round) {
+		int stalest = 0;
+		for (int i = 0; i < enemyCount; i++) {
+			if (enemyId[i] == id) {
+				if (enemyRound[i] < round)
+					influence.addEnemy(pos, round);
+				if (enemyRound[i] <= round) {
+					enemyPos[i] = pos;
+					enemyRound[i] = round;
+				}
+				return;
+			}
+			if (enemyRound[i] < enemyRound[stalest])
+				stalest = i;
+		}
+
+		int slot;
+		if (enemyCount < MAX_ENEMIES)
+			slot = enemyCount++;
+		else if (enemyRound[stalest] < round)
+			slot = stalest;
+		else
+			return;
+		enemyId[slot] = id;
+		enemyPos[slot] = pos;
+		enemyRound[slot] = round;
+		influence.addEnemy(pos, round);
+	}
+
+	/*
+	 * Marks every allied tower as ours, and forgets the owner of any tower we
+	 * thought was ours but is not in the list any more.
+	 */
+	private void updateAlliedTowers(int round) {
+		MapLocation[] allyTowers = rc.senseAlliedTowers();
+		int myTeam = snapshot.myTeam;
+		for (int i = 0; i < towerCount; i++) {
+			if (towerTeam[i] == myTeam)
+				towerTeam[i] = UNKNOWN_TEAM;
+		}
+		for (int i = 0; i < allyTowers.length; i++)
+			recordTower(Geometry.pack(allyTowers[i]), myTeam, round);
+	}
+}
@@ -0,0 +1,343 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Incremental A* over a TerrainGrid for ground units. A search is started by
+ * setGoal and advanced by plan, which expands nodes until the round's
+ * bytecode count reaches the limit it is given and carries on from there the
+ * next time it is called. Finished paths are stored as turn points (packed
+ * map squares, see Geometry.pack) in a small per-goal cache; paths can also
+ * be handed in from a teammate's broadcast with cachePath.
+ *
+ * If the goal cannot be reached with what is known, the path leads to the
+ * explored square closest to it instead.
+ *
+ * A planner told to avoid an InfluenceMap charges the map's cost on top of
+ * the move delay for every square it enters, so paths bend around enemy
+ * towers and gatherings when a detour is cheap enough. The heuristic still
+ * only counts move delays, so it stays admissible.
+ */
+public class PathPlanner {
+	private final static int CACHE_SIZE = 4;
+	private final static int NO_GOAL = Integer.MIN_VALUE;
+
+	// offsets indexed by Direction ordinal, odd ordinals are the diagonals
+	private final static int[] DX = { 0, 1, 1, 1, 0, -1, -1, -1 };
+	private final static int[] DY = { -1, -1, 0, 1, 1, 1, 0, -1 };
+
+	private final TerrainGrid grid;
+	private final int orthCost, diagCost;
+	private InfluenceMap threat = null;
+
+	// search state, a node is open when stamp == 2 * searchId and closed
+	// when stamp == 2 * searchId + 1
+	private final int[] stamp = new int[TerrainGrid.SIZE];
+	private final int[] g = new int[TerrainGrid.SIZE];
+	private final int[] parent = new int[TerrainGrid.SIZE];
+	private int searchId = 0;
+	private boolean searching = false;
+	private int start, goalGX, goalGY;
+	private int bestNode, bestH;
+
+	// binary min-heap of open nodes keyed by f, stale entries are skipped
+	private int[] heapNode = new int[256];
+	private int[] heapKey = new int[256];
+	private int heapSize = 0;
+
+	private final int[] cacheGoal = new int[CACHE_SIZE];
+	private final int[][] cachePath = new int[CACHE_SIZE][];
+	private int cacheNext = 0;
+
+	// the path currently being followed
+	private int goalKey = NO_GOAL;
+	private int[] path = null;
+	private int pathPos = 0;
+
+	public PathPlanner(TerrainGrid terrain, RobotType type) {
+		grid = terrain;
+		orthCost = type.moveDelayOrthogonal();
+		diagCost = type.moveDelayDiagonal();
+		for (int i = 0; i < CACHE_SIZE; i++)
+			cacheGoal[i] = NO_GOAL;
+	}
+
+	/*
+	 * Makes searches started from now on steer clear of what the map
+	 * considers dangerous.
+	 */
+	public void avoid(InfluenceMap map) {
+		threat = map;
+	}
+
+	/*
+	 * Points the planner at a goal. Uses a cached path if there is one,
+	 * otherwise starts a new search from the given location. Calling it again
+	 * with the same goal keeps the current path or search going.
+	 */
+	public void setGoal(MapLocation goal, MapLocation from) {
+		int key = Geometry.pack(goal);
+		if (key == goalKey && (path != null || searching))
+			return;
+
+		goalKey = key;
+		path = cachedPath(key);
+		pathPos = 0;
+		searching = false;
+		if (path == null)
+			startSearch(goal, from);
+	}
+
+	/*
+	 * Continues the search until bytecodeLimit is reached. Returns true once
+	 * there is a path to follow.
+	 */
+	public boolean plan(int bytecodeLimit) {
+		if (!searching)
+			return path != null;
+
+		while (heapSize > 0) {
+			if (Clock.getBytecodeNum() > bytecodeLimit)
+				return false;
+
+			int node = pop();
+			if (stamp[node] != 2 * searchId)
+				continue;
+			stamp[node] = 2 * searchId + 1;
+
+			int gx = node % TerrainGrid.WIDTH;
+			int gy = node / TerrainGrid.WIDTH;
+			if (gx == goalGX && gy == goalGY) {
+				finish(node);
+				return true;
+			}
+			expand(node, gx, gy);
+		}
+
+		// ran out of squares, settle for getting as close as we can
+		finish(bestNode);
+		return true;
+	}
+
+	/*
+	 * Whether a search is still under way.
+	 */
+	public boolean isSearching() {
+		return searching;
+	}
+
+	/*
+	 * Direction to head in to follow the current path from the given square.
+	 * Returns null if there is no path or it has been used up.
+	 */
+	public Direction nextDirection(MapLocation curr) {
+		if (path == null)
+			return null;
+
+		int here = Geometry.pack(curr);
+		while (pathPos < path.length && path[pathPos] == here)
+			pathPos++;
+		if (pathPos >= path.length)
+			return null;
+
+		int next = path[pathPos];
+		return Geometry.directionTo(curr.getX(), curr.getY(), Geometry
+				.unpackX(next), Geometry.unpackY(next));
+	}
+
+	/*
+	 * Throws away the current path, e.g. because it runs into terrain we did
+	 * not know about when it was planned. The next setGoal starts over.
+	 */
+	public void invalidate() {
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cacheGoal[i] == goalKey) {
+				cacheGoal[i] = NO_GOAL;
+				cachePath[i] = null;
+			}
+		}
+		goalKey = NO_GOAL;
+		path = null;
+		searching = false;
+	}
+
+	/*
+	 * The cached turn points leading to a goal, or null.
+	 */
+	public int[] cachedPath(MapLocation goal) {
+		return cachedPath(Geometry.pack(goal));
+	}
+
+	/*
+	 * Stores a path to a goal, e.g. one broadcast by the squad leader.
+	 */
+	public void cachePath(MapLocation goal, int[] waypoints) {
+		cachePath(Geometry.pack(goal), waypoints);
+	}
+
+	private int[] cachedPath(int key) {
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cacheGoal[i] == key)
+				return cachePath[i];
+		}
+		return null;
+	}
+
+	private void cachePath(int key, int[] waypoints) {
+		for (int i = 0; i < CACHE_SIZE; i++) {
+			if (cacheGoal[i] == key) {
+				cachePath[i] = waypoints;
+				return;
+			}
+		}
+		cacheGoal[cacheNext] = key;
+		cachePath[cacheNext] = waypoints;
+		cacheNext = (cacheNext + 1) % CACHE_SIZE;
+	}
+
+	private void startSearch(MapLocation goal, MapLocation from) {
+		searchId++;
+		heapSize = 0;
+		start = grid.index(from);
+		goalGX = goal.getX() - grid.mapX(0);
+		goalGY = goal.getY() - grid.mapY(0);
+		if (start < 0)
+			return;
+
+		searching = true;
+		stamp[start] = 2 * searchId;
+		g[start] = 0;
+		parent[start] = -1;
+		bestNode = start;
+		bestH = heuristic(start % TerrainGrid.WIDTH, start / TerrainGrid.WIDTH);
+		push(start, bestH);
+	}
+
+	private void expand(int node, int gx, int gy) {
+		int open = 2 * searchId;
+		int closed = open + 1;
+		for (int d = 0; d < 8; d++) {
+			int nx = gx + DX[d];
+			int ny = gy + DY[d];
+			if (nx < 0 || ny < 0 || nx >= TerrainGrid.WIDTH
+					|| ny >= TerrainGrid.HEIGHT)
+				continue;
+
+			int next = ny * TerrainGrid.WIDTH + nx;
+			if (stamp[next] == closed || grid.isBlocked(next))
+				continue;
+
+			int cost = g[node] + ((d & 1) == 1 ? diagCost : orthCost);
+			if (threat != null)
+				cost += threat.cost(nx, ny);
+			if (stamp[next] == open && g[next] <= cost)
+				continue;
+
+			stamp[next] = open;
+			g[next] = cost;
+			parent[next] = node;
+			int h = heuristic(nx, ny);
+			if (h < bestH) {
+				bestH = h;
+				bestNode = next;
+			}
+			push(next, cost + h);
+		}
+	}
+
+	/*
+	 * Octile distance to the goal, using this robot's move delays as costs.
+	 */
+	private int heuristic(int gx, int gy) {
+		int xDiff = gx > goalGX ? gx - goalGX : goalGX - gx;
+		int yDiff = gy > goalGY ? gy - goalGY : goalGY - gy;
+		if (xDiff < yDiff)
+			return diagCost * xDiff + orthCost * (yDiff - xDiff);
+		return diagCost * yDiff + orthCost * (xDiff - yDiff);
+	}
+
+	/*
+	 * Walks the parents back from the end node and keeps only the squares
+	 * where the path changes direction, plus the end itself.
+	 */
+	private void finish(int end) {
+		searching = false;
+		heapSize = 0;
+
+		int length = 0;
+		int[] turns = new int[16];
+		int node = end;
+		int lastStep = 0;
+		while (node != start && node >= 0) {
+			int prev = parent[node];
+			int step = node - prev;
+			if (node == end || step != lastStep) {
+				if (length == turns.length) {
+					int[] bigger = new int[length * 2];
+					System.arraycopy(turns, 0, bigger, 0, length);
+					turns = bigger;
+				}
+				turns[length++] = Geometry.pack(grid.mapX(node), grid
+						.mapY(node));
+			}
+			lastStep = step;
+			node = prev;
+		}
+
+		// the turn points were collected end first
+		int[] waypoints = new int[length];
+		for (int i = 0; i < length; i++)
+			waypoints[i] = turns[length - 1 - i];
+
+		path = waypoints;
+		pathPos = 0;
+		cachePath(goalKey, waypoints);
+	}
+
+	private void push(int node, int key) {
+		if (heapSize == heapNode.length) {
+			int[] newNode = new int[heapSize * 2];
+			int[] newKey = new int[heapSize * 2];
+			System.arraycopy(heapNode, 0, newNode, 0, heapSize);
+			System.arraycopy(heapKey, 0, newKey, 0, heapSize);
+			heapNode = newNode;
+			heapKey = newKey;
+		}
+
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >> 1;
+			if (heapKey[up] <= key)
+				break;
+			heapNode[i] = heapNode[up];
+			heapKey[i] = heapKey[up];
+			i = up;
+		}
+		heapNode[i] = node;
+		heapKey[i] = key;
+	}
+
+	private int pop() {
+		int top = heapNode[0];
+		int size = --heapSize;
+		int node = heapNode[size];
+		int key = heapKey[size];
+
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && heapKey[child + 1] < heapKey[child])
+				child++;
+			if (heapKey[child] >= key)
+				break;
+			heapNode[i] = heapNode[child];
+			heapKey[i] = heapKey[child];
+			i = child;
+		}
+		heapNode[i] = node;
+		heapKey[i] = key;
+		return top;
+	}
+}
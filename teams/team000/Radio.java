@@ -0,0 +1,385 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Packs any number of typed records into the ints of a single Message, and
+ * indexes the records of received messages by type.
+ *
+ * Message layout:
+ *   ints[0]  sender robot ID
+ *   ints[1]  round the message was sent in
+ *   ints[2]  checksum of the message, keyed by our team
+ *   then records, each a header int (type << 24 | payload length) followed
+ *   by the payload ints
+ *
+ * Records are queued with startRecord/put during the turn and all of them go
+ * out in one broadcast on flush(). After receive(), first(type)/next(record)
+ * walk the records of one type without looking at any of the others.
+ *
+ * Messages longer than MAX_INTS, more than MAX_AGE rounds old, or not
+ * newer than the last one accepted from the same sender are dropped before
+ * their records are looked at. This keeps the enemy from replaying our own
+ * orders back at us, and the cheap checks up front keep flooding the
+ * channel with junk cheap to ignore.
+ *
+ * The checksum covers every int of the message. It is worked out in the
+ * same pass that indexes the records, and a message whose checksum does not
+ * match has its records dropped again.
+ */
+public class Radio {
+	// record types
+	public final static int ESTABLISH_LEADER = 0;
+	public final static int ORDERS = 1;
+	public final static int SQUAD_PATH = 2;
+	public final static int KNOWLEDGE = 3;
+	public final static int FORMATION = 4;
+	public final static int TERRAIN = 5;
+	private final static int TYPE_COUNT = 6;
+
+	// marks a location field that has no location in it
+	public final static int NO_LOCATION = Integer.MIN_VALUE;
+
+	private final static int SENDER = 0;
+	private final static int ROUND = 1;
+	private final static int CHECKSUM = 2;
+	private final static int HEADER_INTS = 3;
+
+	// how many rounds a message stays acceptable after it was sent
+	private final static int MAX_AGE = 2;
+
+	private final static int KEY = 0x5bd1e995;
+	private final static int PRIME = 0x01000193;
+
+	// last round accepted per sender, open addressed on the whole ID
+	private final static int SENDER_SLOTS = 64;
+	private final static int SENDER_SHIFT = 26;
+	private final static int UNUSED = Integer.MIN_VALUE;
+
+	private final static int MAX_LENGTH = 0xFFFFFF;
+
+	// longest message taken in
+	private final static int MAX_INTS = 256;
+
+	private final RobotController rc;
+	private final int myID;
+	private final int teamKey;
+
+	private final int[] slotSender = new int[SENDER_SLOTS];
+	private final int[] slotRound = new int[SENDER_SLOTS];
+
+	// outgoing message
+	private int[] out = new int[64];
+	private int outLength = HEADER_INTS;
+	private int recordStart = -1;
+	// length of the queued records that fit in MAX_INTS
+	private int fitLength = HEADER_INTS;
+
+	// received records, as linked lists per type
+	private final int[] firstOfType = new int[TYPE_COUNT];
+	private int recordCount = 0;
+	private int[][] recordInts = new int[16][];
+	private int[] recordOffset = new int[16];
+	private int[] recordLength = new int[16];
+	private int[] recordNext = new int[16];
+
+	public Radio(RobotController rC) {
+		rc = rC;
+		myID = rc.getRobot().getID();
+		teamKey = KEY ^ (rc.getTeam().ordinal() + 1) * PRIME;
+		for (int i = 0; i < SENDER_SLOTS; i++)
+			slotRound[i] = UNUSED;
+	}
+
+	/***************************************************************************
+	 * Sending
+	 **************************************************************************/
+
+	public void startRecord(int type) {
+		endRecord();
+		ensureOut(1);
+		recordStart = outLength;
+		out[outLength++] = type << 24;
+	}
+
+	public void put(int value) {
+		ensureOut(1);
+		out[outLength++] = value;
+	}
+
+	public void put(int[] values, int offset, int length) {
+		ensureOut(length);
+		System.arraycopy(values, offset, out, outLength, length);
+		outLength += length;
+	}
+
+	public void putLocation(MapLocation loc) {
+		put(loc == null ? NO_LOCATION : Geometry.pack(loc));
+	}
+
+	/*
+	 * Queues a copy of a received record, e.g. to pass the leader's orders on
+	 * to robots out of its range.
+	 */
+	public void relay(int record) {
+		int[] ints = recordInts[record];
+		int offset = recordOffset[record];
+		startRecord(ints[offset - 1] >>> 24);
+		put(ints, offset, recordLength[record]);
+	}
+
+	/*
+	 * Makes room for length more ints in the outgoing message and returns
+	 * where they start. For callers that fill in a record directly.
+	 */
+	public int reserve(int length) {
+		ensureOut(length);
+		int at = outLength;
+		outLength += length;
+		return at;
+	}
+
+	public int[] outgoing() {
+		return out;
+	}
+
+	/*
+	 * Broadcasts everything queued this turn as a single message. Does
+	 * nothing if nothing was queued. Records past MAX_INTS are left out, as
+	 * nobody would take the message in.
+	 */
+	public void flush() throws GameActionException {
+		endRecord();
+		outLength = fitLength;
+		fitLength = HEADER_INTS;
+		if (outLength == HEADER_INTS)
+			return;
+
+		Message msg = new Message();
+		msg.ints = new int[outLength];
+		out[SENDER] = myID;
+		out[ROUND] = Clock.getRoundNum();
+		out[CHECKSUM] = 0;
+		out[CHECKSUM] = checksum(out, outLength);
+		System.arraycopy(out, 0, msg.ints, 0, outLength);
+		outLength = HEADER_INTS;
+		rc.broadcast(msg);
+	}
+
+	private void endRecord() {
+		if (recordStart == -1)
+			return;
+		out[recordStart] |= (outLength - recordStart - 1) & MAX_LENGTH;
+		recordStart = -1;
+		if (outLength <= MAX_INTS)
+			fitLength = outLength;
+	}
+
+	private void ensureOut(int length) {
+		if (outLength + length <= out.length)
+			return;
+		int size = out.length * 2;
+		while (size < outLength + length)
+			size *= 2;
+		int[] bigger = new int[size];
+		System.arraycopy(out, 0, bigger, 0, outLength);
+		out = bigger;
+	}
+
+	/***************************************************************************
+	 * Receiving
+	 **************************************************************************/
+
+	/*
+	 * Indexes the records of this turn's messages, replacing whatever was
+	 * received before. Messages that do not parse are skipped.
+	 */
+	public void receive(Message[] msgs) {
+		for (int t = 0; t < TYPE_COUNT; t++)
+			firstOfType[t] = -1;
+		recordCount = 0;
+		if (msgs == null)
+			return;
+
+		int round = Clock.getRoundNum();
+		// walk backwards so each type's list comes out oldest message first
+		for (int m = msgs.length - 1; m >= 0; m--) {
+			int[] ints = msgs[m].ints;
+			int slot = accept(ints, round);
+			if (slot == -1)
+				continue;
+
+			// index the records, hashing every int on the way; the
+			// checksum int itself is hashed as 0, as it was when sent
+			int length = ints.length;
+			int hash = (teamKey ^ length) * PRIME;
+			hash = (hash ^ ints[SENDER]) * PRIME;
+			hash = (hash ^ ints[ROUND]) * PRIME * PRIME;
+			int first = recordCount;
+			int at = HEADER_INTS;
+			while (at < length) {
+				int type = ints[at] >>> 24;
+				int end = at + 1 + (ints[at] & MAX_LENGTH);
+				if (type >= TYPE_COUNT || end > length)
+					break;
+				addRecord(ints, at + 1, end - at - 1);
+				for (; at < end; at++)
+					hash = (hash ^ ints[at]) * PRIME;
+			}
+			if (at != length || ints[CHECKSUM] != (hash ^ (hash >>> 15))) {
+				recordCount = first;
+				continue;
+			}
+			slotSender[slot] = ints[SENDER];
+			slotRound[slot] = ints[ROUND];
+
+			// link this message's records in front of the later messages'
+			for (int r = recordCount - 1; r >= first; r--) {
+				int[] recInts = recordInts[r];
+				int type = recInts[recordOffset[r] - 1] >>> 24;
+				recordNext[r] = firstOfType[type];
+				firstOfType[type] = r;
+			}
+		}
+	}
+
+	/*
+	 * Whether a message is short enough, recent, and not a replay of one we
+	 * have already taken from the same sender. Returns the sender's slot, to
+	 * be updated once the checksum matches, or -1.
+	 */
+	private int accept(int[] ints, int round) {
+		if (ints == null || ints.length < HEADER_INTS
+				|| ints.length > MAX_INTS)
+			return -1;
+
+		int sent = ints[ROUND];
+		if (sent > round || sent < round - MAX_AGE)
+			return -1;
+
+		int sender = ints[SENDER];
+		int slot = senderSlot(sender, round);
+		if (slot == -1 || slotSender[slot] == sender && slotRound[slot] >= sent)
+			return -1;
+		return slot;
+	}
+
+	/*
+	 * The slot holding a sender's last round, or the first slot on its probe
+	 * path that can take it, or -1 if every slot belongs to another sender
+	 * heard from in the last MAX_AGE rounds. A slot whose round is older
+	 * than that can be given away, since nothing it would reject is still
+	 * acceptable; the probe still goes on to an unused slot, in case the
+	 * sender sits further along.
+	 */
+	private int senderSlot(int sender, int round) {
+		int free = -1;
+		int slot = (sender * 0x9E3779B1) >>> SENDER_SHIFT;
+		for (int i = 0; i < SENDER_SLOTS; i++) {
+			if (slotRound[slot] == UNUSED)
+				return free != -1 ? free : slot;
+			if (slotSender[slot] == sender)
+				return slot;
+			if (free == -1 && slotRound[slot] < round - MAX_AGE)
+				free = slot;
+			slot = (slot + 1) & (SENDER_SLOTS - 1);
+		}
+		return free;
+	}
+
+	/*
+	 * FNV style hash of a message's length and all of its ints, seeded with
+	 * our team's key. receive() works out the same hash as it goes.
+	 */
+	private int checksum(int[] ints, int length) {
+		int hash = (teamKey ^ length) * PRIME;
+		for (int i = 0; i < length; i++)
+			hash = (hash ^ ints[i]) * PRIME;
+		return hash ^ (hash >>> 15);
+	}
+
+	/*
+	 * The first received record of a type, or -1.
+	 */
+	public int first(int type) {
+		return firstOfType[type];
+	}
+
+	/*
+	 * The next received record of the same type, or -1.
+	 */
+	public int next(int record) {
+		return recordNext[record];
+	}
+
+	/*
+	 * The first received record of a type sent by the given robot, or -1.
+	 */
+	public int find(int type, int sender) {
+		for (int r = firstOfType[type]; r != -1; r = recordNext[r]) {
+			if (recordInts[r][SENDER] == sender)
+				return r;
+		}
+		return -1;
+	}
+
+	public int sender(int record) {
+		return recordInts[record][SENDER];
+	}
+
+	public int round(int record) {
+		return recordInts[record][ROUND];
+	}
+
+	public int length(int record) {
+		return recordLength[record];
+	}
+
+	/*
+	 * The k-th payload int of a record.
+	 */
+	public int get(int record, int k) {
+		return recordInts[record][recordOffset[record] + k];
+	}
+
+	public MapLocation getLocation(int record, int k) {
+		int packed = get(record, k);
+		if (packed == NO_LOCATION)
+			return null;
+		return new MapLocation(Geometry.unpackX(packed), Geometry
+				.unpackY(packed));
+	}
+
+	/*
+	 * The ints a record's payload lives in, starting at offset(record).
+	 */
+	public int[] ints(int record) {
+		return recordInts[record];
+	}
+
+	public int offset(int record) {
+		return recordOffset[record];
+	}
+
+	private void addRecord(int[] ints, int offset, int length) {
+		if (recordCount == recordInts.length) {
+			int size = recordCount * 2;
+			int[][] newInts = new int[size][];
+			int[] newOffset = new int[size];
+			int[] newLength = new int[size];
+			int[] newNext = new int[size];
+			System.arraycopy(recordInts, 0, newInts, 0, recordCount);
+			System.arraycopy(recordOffset, 0, newOffset, 0, recordCount);
+			System.arraycopy(recordLength, 0, newLength, 0, recordCount);
+			System.arraycopy(recordNext, 0, newNext, 0, recordCount);
+			recordInts = newInts;
+			recordOffset = newOffset;
+			recordLength = newLength;
+			recordNext = newNext;
+		}
+		recordInts[recordCount] = ints;
+		recordOffset[recordCount] = offset;
+		recordLength[recordCount] = length;
+		recordCount++;
+	}
+}
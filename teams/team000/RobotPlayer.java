@@ -17,8 +17,24 @@ public class RobotPlayer implements Runnable {
 	private final static int MIN_SOLDIER_NUM = 4;
 	private final static int MIN_MORTAR_NUM = 3;
 
-	private final static String ATTACK_STRING = "attack";
-	private final static String SPAWN_STRING = "spawn";
+	// whether to show indicator strings; when false the calls are compiled
+	// out, which is what tournament and batch runs want
+	private final static boolean DEBUG = false;
+
+	// orders a squad leader can give, see Radio.ORDERS
+	private final static int NO_ORDER = -1;
+	private final static int IDLE = 0;
+	private final static int SPAWN = 1;
+	private final static int ATTACK = 2;
+	private final static String[] ORDER_NAMES = { "idle", "spawn", "attack" };
+
+	// payload of an ORDERS record
+	private final static int ORDERS_LEADER = 0; // ID of the squad leader
+	private final static int ORDERS_ORDER = 1;
+	private final static int ORDERS_SOLDIERS = 2; // soldiers still needed
+	private final static int ORDERS_LEADER_LOC = 3;
+	private final static int ORDERS_TARGET = 4; // tower to attack, if any
+	private final static int ORDERS_DIR = 5; // Direction ordinal, or -1
 
 	// whether or not the team has any air units
 	// initially, we have none
@@ -31,44 +47,59 @@ public class RobotPlayer implements Runnable {
 	private RobotType myType;
 
 	private int following = 0;// the ID of the robot you're following
-	private Message leaderMsg = null; // message from the leader
+	private int leaderOrders = -1; // this turn's ORDERS record from the leader
 
 	private boolean working;// if the archon is already doing something
 
+	// everything sensed this round, shared by all of the search methods
+	private final SensorSnapshot snapshot;
+	private final AllySelector allySelector;
+	private final MapKnowledge knowledge;
+	private final Radio radio;
+	private final Formation formation;
+	private final SpawnPlanner spawner;
+	private final TaskScheduler scheduler = new TaskScheduler();
+	private final int myID;
+	private final int bornRound;
+
+	// task priorities and the most bytecodes each is expected to need
+	private final static int SENSE_PRIORITY = 50;
+	private final static int SENSE_COST = 800;
+	private final static int RECEIVE_PRIORITY = 40;
+	// ant profile: about 1100 with three messages a round, and ant bench
+	// puts each message after that at about 670 more for 23 ints, some 9 a
+	// payload int as the checksum covers all of them
+	private final static int RECEIVE_COST = 1500;
+	private final static int ROLE_PRIORITY = 30;
+	private final static int ROLE_COST = 2500;
+	private final static int SEND_PRIORITY = 20;
+	private final static int SEND_COST = 300;
+	private final static int BACKGROUND_PRIORITY = 0;
+	private final static int BACKGROUND_COST = 100;
+
+	private final static RobotType[] ROBOT_TYPES = RobotType.values();
+	private final static Direction[] DIRECTIONS = Direction.values();
+
 	public RobotPlayer(RobotController rC) {
 		rc = rC;
 		myTeam = rc.getTeam();
 		myType = rc.getRobotType();
+		snapshot = new SensorSnapshot(rc);
+		allySelector = new AllySelector(snapshot);
+		knowledge = new MapKnowledge(rc, snapshot);
+		radio = new Radio(rc);
+		formation = new Formation(snapshot);
+		spawner = new SpawnPlanner(rc, snapshot);
+		myID = rc.getRobot().getID();
+		bornRound = Clock.getRoundNum();
 	}
 
 	public void run() {
+		registerTasks();
 		while (true) {
 			try {
 				/** * beginning of main loop ** */
-				working = rc.isMovementActive()
-						|| rc.getRoundsUntilAttackIdle() != 0
-						|| rc.getRoundsUntilMovementIdle() != 0;
-
-				switch (myType) {
-				case ARCHON:
-					archon();
-					break;
-				case SCOUT:
-					scout();
-					break;
-				case BOMBER:
-					bomber();
-					break;
-				case SOLDIER:
-					soldier();
-					break;
-				case MORTAR:
-					mortar();
-					break;
-				case SNIPER:
-					sniper();
-					break;
-				}
+				scheduler.runRound();
 				rc.yield();
 				/** * end of main loop ** */
 			} catch (Exception e) {
@@ -78,10 +109,88 @@ public class RobotPlayer implements Runnable {
 		}
 	}
 
+	/*
+	 * Sets up the work done every round, highest priority first: sensing,
+	 * reading the radio, the robot's role, sending what the role queued, and
+	 * then terrain scanning and path planning in whatever is left of the
+	 * round.
+	 */
+	private void registerTasks() {
+		scheduler.add(new Task() {
+			public boolean run(int bytecodeLimit) {
+				knowledge.update(Math.min(bytecodeLimit,
+						KNOWLEDGE_BYTECODE_LIMIT));
+				return true;
+			}
+		}, SENSE_PRIORITY, SENSE_COST);
+
+		scheduler.add(new Task() {
+			public boolean run(int bytecodeLimit) {
+				radio.receive(rc.getAllMessages());
+				return true;
+			}
+		}, RECEIVE_PRIORITY, RECEIVE_COST);
+
+		scheduler.add(new Task() {
+			public boolean run(int bytecodeLimit) {
+				role();
+				return true;
+			}
+		}, ROLE_PRIORITY, ROLE_COST);
+
+		scheduler.add(new Task() {
+			public boolean run(int bytecodeLimit) throws GameActionException {
+				radio.flush();
+				return true;
+			}
+		}, SEND_PRIORITY, SEND_COST);
+
+		scheduler.add(new Task() {
+			public boolean run(int bytecodeLimit) {
+				knowledge.update(bytecodeLimit);
+				if (planner == null)
+					return true;
+				planner.plan(bytecodeLimit);
+				return !planner.isSearching();
+			}
+		}, BACKGROUND_PRIORITY, BACKGROUND_COST);
+	}
+
+	/*
+	 * One round of whatever this robot's type does.
+	 */
+	private void role() {
+		working = rc.isMovementActive()
+				|| rc.getRoundsUntilAttackIdle() != 0
+				|| rc.getRoundsUntilMovementIdle() != 0;
+
+		switch (myType) {
+		case ARCHON:
+			archon();
+			break;
+		case SCOUT:
+			scout();
+			break;
+		case BOMBER:
+			bomber();
+			break;
+		case SOLDIER:
+			soldier();
+			break;
+		case MORTAR:
+			mortar();
+			break;
+		case SNIPER:
+			sniper();
+			break;
+		}
+	}
+
 	/***************************************************************************
 	 * Movement Methods
 	 **************************************************************************/
 	private Direction goalDir;
+	private MapLocation goalLoc; // set when the goal is a known square
 	private Robot target;
 	private boolean isTracing = false;
 
@@ -90,28 +199,61 @@ public class RobotPlayer implements Runnable {
 
 	// private boolean canAttack = false;
 
+	// ground units plan around terrain, created the first time they hunt
+	private PathPlanner planner = null;
+
+	// stand-in goal for when all we have is a direction to head in
+	private MapLocation projectedGoal = null;
+	private Direction projectedDir = null;
+
+	private final static int LOOKAHEAD = 10;
+
+	// troops further than this from their slot plan a path to it
+	private final static int SLOT_PLAN_DISTANCE = 4;
+	// rounds a new troop waits to be taken into a formation
+	private final static int ADOPT_ROUNDS = 4;
+	// enemy sightings older than a shell's flight are not worth shelling
+	private final static int SHELL_SIGHTING_AGE = MORTAR_DELAY_ROUNDS;
+
+	// how far into the round terrain sensing and path planning may run
+	private final static int KNOWLEDGE_BYTECODE_LIMIT = 2000;
+	private final static int SENSE_BYTECODE_LIMIT = 3000;
+	private final static int PLAN_BYTECODE_LIMIT = 4500;
+
 	private void hunt() {
 		try {
-			// move in the direction of the target
-			if(!isTracing){
-				if(rc.getDirection() != goalDir)
-					rc.setDirection(goalDir);
-				else if(rc.canMove(goalDir))
-					rc.moveForward();
-				else
-					isTracing = true;
-			}
-			else{
-				if(rc.canMove(goalDir)){
-					isTracing = false;
-					rc.setDirection(goalDir);
+			MapLocation currLoc = rc.getLocation();
+			Direction dir = null;
+			if (!myType.isAirborne())
+				dir = plannedDirection(currLoc);
+
+			// nothing planned (yet), move in the direction of the target
+			if (dir == null)
+				trace();
+			else {
+				isTracing = false;
+				Direction step = dir;
+				if (!rc.canMove(step)) {
+					// terrain we did not know about when planning
+					if (knowledge.terrain.isBlocked(currLoc.add(step)))
+						planner.invalidate();
+
+					// step around whatever is in the way
+					if (rc.canMove(dir.rotateLeft()))
+						step = dir.rotateLeft();
+					else if (rc.canMove(dir.rotateRight()))
+						step = dir.rotateRight();
+					else
+						step = null;
+				}
+
+				if (step != null) {
+					if (rc.getDirection() != step)
+						rc.setDirection(step);
+					else
+						rc.moveForward();
 				}
-				else if(rc.canMove(rc.getDirection()))
-					rc.moveForward();
-				else
-					rc.setDirection(rc.getDirection().rotateRight());
 			}
-			rc.yield();
 		} catch (Exception e) {
 			System.out.println("Caught Exception:");
 			e.printStackTrace();
@@ -119,54 +261,195 @@ public class RobotPlayer implements Runnable {
 	}
 
 	/*
-	 * Judges the direction one should travel to reach the goal. Compares
-	 * current position with position of the target to calculate.
+	 * Bug-style fallback for when there is no planned path: head for the goal
+	 * direction and follow the obstacle round to the right when blocked.
 	 */
-	private Direction calcDirection(MapLocation goal) {
-		int currX = rc.getLocation().getX();
-		int currY = rc.getLocation().getY();
-
-		if (currX < goal.getX()) {
-			if (currY < goal.getY())
-				return Direction.SOUTH_EAST;
-			else if (currY > goal.getY())
-				return Direction.NORTH_EAST;
+	private void trace() throws GameActionException {
+		if(!isTracing){
+			if(rc.getDirection() != goalDir)
+				rc.setDirection(goalDir);
+			else if(rc.canMove(goalDir))
+				rc.moveForward();
 			else
-				return Direction.EAST;
-		} else if (currX > goal.getX()) {
-			if (currY < goal.getY())
-				return Direction.SOUTH_WEST;
-			else if (currY > goal.getY())
-				return Direction.NORTH_WEST;
+				isTracing = true;
+		}
+		else{
+			if(rc.canMove(goalDir)){
+				isTracing = false;
+				rc.setDirection(goalDir);
+			}
+			else if(rc.canMove(rc.getDirection()))
+				rc.moveForward();
 			else
-				return Direction.WEST;
-		} else if (currY < goal.getY())
-			return Direction.SOUTH;
-		else if (currY > goal.getY())
-			return Direction.NORTH;
-		else
-			return Direction.NONE;
+				rc.setDirection(rc.getDirection().rotateRight());
+		}
+	}
+
+	private void ensurePlanner() {
+		if (planner == null) {
+			planner = new PathPlanner(knowledge.terrain, myType);
+			// archons cannot fight, so they keep out of trouble
+			if (myType == RobotType.ARCHON)
+				planner.avoid(knowledge.influence);
+		}
+	}
+
+	/*
+	 * Senses terrain and advances the path search towards the hunt goal, both
+	 * within this round's budget. Returns the direction to step in, or null if
+	 * no path is ready yet.
+	 */
+	private Direction plannedDirection(MapLocation currLoc) {
+		ensurePlanner();
+		knowledge.update(SENSE_BYTECODE_LIMIT);
+
+		MapLocation goal = huntGoal(currLoc);
+		if (goal == null)
+			return null;
+
+		planner.setGoal(goal, currLoc);
+		if (!planner.plan(PLAN_BYTECODE_LIMIT))
+			return null;
+
+		Direction dir = planner.nextDirection(currLoc);
+		// used up a path that stopped short of the goal, plan again from here
+		if (dir == null)
+			planner.invalidate();
+		return dir;
+	}
+
+	/*
+	 * The square hunt() is headed for. When only a direction is known, a
+	 * square LOOKAHEAD moves out that way is used and kept until we get close
+	 * to it or the direction changes, so the planner is not restarted every
+	 * turn.
+	 */
+	private MapLocation huntGoal(MapLocation currLoc) {
+		if (goalLoc != null)
+			return goalLoc;
+		if (goalDir == null || goalDir == Direction.NONE
+				|| goalDir == Direction.OMNI)
+			return null;
+
+		if (projectedGoal == null || projectedDir != goalDir
+				|| Geometry.chebyshev(currLoc, projectedGoal) <= 1) {
+			MapLocation loc = currLoc;
+			for (int i = 0; i < LOOKAHEAD; i++)
+				loc = loc.add(goalDir);
+			projectedGoal = loc;
+			projectedDir = goalDir;
+		}
+		return projectedGoal;
+	}
+
+	/*
+	 * Plans a ground path from here to the target on behalf of the squad.
+	 * Returns its turn points, or null if it is not ready yet.
+	 */
+	private int[] squadPath(MapLocation target) {
+		ensurePlanner();
+		knowledge.update(SENSE_BYTECODE_LIMIT);
+		planner.setGoal(target, rc.getLocation());
+		if (!planner.plan(PLAN_BYTECODE_LIMIT))
+			return null;
+		return planner.cachedPath(target);
+	}
+
+	/*
+	 * Queues an ORDERS record for this turn's broadcast.
+	 */
+	private void queueOrders(int squadLeader, int order, int soldiersNeeded,
+			MapLocation leaderLoc, MapLocation towerLoc, Direction dir) {
+		radio.startRecord(Radio.ORDERS);
+		radio.put(squadLeader);
+		radio.put(order);
+		radio.put(soldiersNeeded);
+		radio.putLocation(leaderLoc);
+		radio.putLocation(towerLoc);
+		radio.put(dir == null ? -1 : dir.ordinal());
+	}
+
+	/*
+	 * Queues a SQUAD_PATH record: the tower followed by the path's turn
+	 * points.
+	 */
+	private void queueSquadPath(MapLocation towerLoc, int[] path) {
+		radio.startRecord(Radio.SQUAD_PATH);
+		radio.putLocation(towerLoc);
+		radio.put(path, 0, path.length);
+	}
+
+	/*
+	 * Queues a KNOWLEDGE record with the towers and enemies we know of, and
+	 * a TERRAIN record with the next part of the terrain.
+	 */
+	private void queueKnowledge() {
+		radio.startRecord(Radio.KNOWLEDGE);
+		int at = radio.reserve(knowledge.exportLength());
+		knowledge.export(radio.outgoing(), at);
+		radio.startRecord(Radio.TERRAIN);
+		at = radio.reserve(knowledge.terrainExportLength());
+		knowledge.exportTerrain(radio.outgoing(), at);
+	}
 
+	/*
+	 * The direction an ORDERS record tells the squad to head in, or null.
+	 */
+	private Direction orderDirection(int orders) {
+		int dir = radio.get(orders, ORDERS_DIR);
+		return dir < 0 ? null : DIRECTIONS[dir];
 	}
 
 	/*
-	 * Return the distance from the current bot to a targeted location.
+	 * Picks up the path the robot we follow sent, if we do not already have
+	 * one to the same tower.
 	 */
-	private double distanceFrom(MapLocation target) {
-		int xDiff = Math.abs(rc.getLocation().getX() - target.getX());
-		int yDiff = Math.abs(rc.getLocation().getY() - target.getY());
+	private void importSquadPath() {
+		int record = radio.find(Radio.SQUAD_PATH, following);
+		if (record == -1 || radio.length(record) < 2)
+			return;
+
+		MapLocation towerLoc = radio.getLocation(record, 0);
+		ensurePlanner();
+		if (towerLoc == null || planner.cachedPath(towerLoc) != null)
+			return;
+
+		int[] path = new int[radio.length(record) - 1];
+		System.arraycopy(radio.ints(record), radio.offset(record) + 1, path,
+				0, path.length);
+		planner.cachePath(towerLoc, path);
+	}
 
-		return Math.hypot(xDiff, yDiff);
+	/*
+	 * Merges the map knowledge in a KNOWLEDGE record, and the TERRAIN record
+	 * from the same robot.
+	 */
+	private void mergeKnowledge(int record) {
+		int offset = radio.offset(record);
+		knowledge.merge(radio.ints(record), offset, offset
+				+ radio.length(record));
+
+		record = radio.find(Radio.TERRAIN, radio.sender(record));
+		if (record != -1) {
+			offset = radio.offset(record);
+			knowledge.mergeTerrain(radio.ints(record), offset, offset
+					+ radio.length(record));
+		}
 	}
 
 	/*
-	 * Return the distance from one location to target location.
+	 * Judges the direction one should travel to reach the goal. Compares
+	 * current position with position of the target to calculate.
 	 */
-	private double distanceFrom(MapLocation location, MapLocation target) {
-		int xDiff = Math.abs(location.getX() - target.getX());
-		int yDiff = Math.abs(location.getY() - target.getY());
+	private Direction calcDirection(MapLocation goal) {
+		return Geometry.directionTo(rc.getLocation(), goal);
+	}
 
-		return Math.hypot(xDiff, yDiff);
+	/*
+	 * Return the squared distance from the current bot to a targeted location.
+	 */
+	private int distanceSqFrom(MapLocation target) {
+		return Geometry.distanceSquared(rc.getLocation(), target);
 	}
 
 	/*
@@ -179,11 +462,17 @@ public class RobotPlayer implements Runnable {
 			targetInfo = null;
 			target = searchForTower();
 			if (target != null) {
-				targetInfo = rc.senseRobotInfo(target);
+				targetInfo = robotInfo(target);
 				goalDir = calcDirection(targetInfo.location);
-			} else
-				goalDir = rc.senseClosestUnknownTower();
-			rc.yield();
+				goalLoc = null;
+			} else {
+				// head for the closest tower we know of before exploring
+				goalLoc = knowledge.closestOtherTower(rc.getLocation());
+				if (goalLoc != null)
+					goalDir = calcDirection(goalLoc);
+				else
+					goalDir = rc.senseClosestUnknownTower();
+			}
 		} catch (Exception e) {
 			System.out.println("Caught Exception:");
 			e.printStackTrace();
@@ -205,22 +494,25 @@ public class RobotPlayer implements Runnable {
 	 * Finds a tower if it is in the sensor range of the robot.
 	 */
 	private Robot searchForTower() {
-		try {
-			Robot nearbyBots[] = rc.senseNearbyGroundRobots();
-
-			for (int i = 0; i < nearbyBots.length; i++) {
-				RobotInfo botInfo = rc.senseRobotInfo(nearbyBots[i]);
-				if (botInfo.team != rc.getTeam()
-						&& botInfo.type == RobotType.TOWER)
-					return nearbyBots[i];
-			}
-		} catch (Exception e) {
-			System.out.println("Caught Exception:");
-			e.printStackTrace();
+		snapshot.senseGround();
+		for (int i = 0; i < snapshot.groundCount; i++) {
+			if (!snapshot.isAlly(i) && snapshot.isType(i, RobotType.TOWER))
+				return snapshot.robots[i];
 		}
 		return null;
 	}
 
+	/*
+	 * Looks up the info of a robot in this round's snapshot. Only goes back to
+	 * the robot controller if the snapshot missed it.
+	 */
+	private RobotInfo robotInfo(Robot bot) throws GameActionException {
+		int i = snapshot.indexOf(bot);
+		if (i != -1)
+			return snapshot.info[i];
+		return rc.senseRobotInfo(bot);
+	}
+
 	// searches for the nearest allied tower
 	private MapLocation nearestAlliedTower() {
 		// the closest allied tower
@@ -228,11 +520,15 @@ public class RobotPlayer implements Runnable {
 
 		try {
 			MapLocation[] allyTowers = rc.senseAlliedTowers();
+			MapLocation currLoc = rc.getLocation();
+			int closestDistSq = 0;
 
 			for (int i = 0; i < allyTowers.length; i++) {
-				if (closestTower == null
-						|| distanceFrom(closestTower) > distanceFrom(allyTowers[i]))
+				int distSq = Geometry.distanceSquared(currLoc, allyTowers[i]);
+				if (closestTower == null || closestDistSq > distSq) {
 					closestTower = allyTowers[i];
+					closestDistSq = distSq;
+				}
 			}
 
 		} catch (Exception e) {
@@ -249,105 +545,51 @@ public class RobotPlayer implements Runnable {
 	 * make it a boolean statement indicating that air bots are close.
 	 */
 	private Robot searchForAirEnemy() {
-		try {
-			Robot nearAirBots[] = rc.senseNearbyAirRobots();
-
-			for (int i = 0; i < nearAirBots.length; i++) {
-				RobotInfo botInfo = rc.senseRobotInfo(nearAirBots[i]);
-				if (botInfo.team != rc.getTeam()
-						&& botInfo.type == RobotType.BOMBER
-						|| botInfo.type == RobotType.SCOUT)
-					return nearAirBots[i];
-			}
-		} catch (Exception e) {
-			System.out.println("Caught Exception");
-			e.printStackTrace();
+		snapshot.senseAll();
+		for (int i = snapshot.groundCount; i < snapshot.count; i++) {
+			if (!snapshot.isAlly(i) && snapshot.isType(i, RobotType.BOMBER)
+					|| snapshot.isType(i, RobotType.SCOUT))
+				return snapshot.robots[i];
 		}
 		return null;
 	}
 
 	/*
-	 * Finds the weakest ally in range. For archons to know who to heal.
+	 * Senses the robots the archon may want to heal this round and returns the
+	 * end of the snapshot range to search.
 	 */
-	private Robot findWeakestAlly() {
-		Robot[] nearGroundBots = rc.senseNearbyGroundRobots();
-		Robot weakestBot = null;
-		try {
-			// search for ground bots no matter what, they should exist
-			for (int i = 0; i < nearGroundBots.length; i++) {
-				RobotInfo botInfo = rc.senseRobotInfo(nearGroundBots[i]);
-				if (botInfo.team == rc.getTeam()) {
-					if (weakestBot == null)
-						weakestBot = nearGroundBots[i];
-					else if (rc.senseRobotInfo(weakestBot).energonLevel > botInfo.energonLevel)
-						weakestBot = nearGroundBots[i];
-				}
-			}
-			// air bots might not exist so...
-			// might want to make this conditional on whether we still need
-			// air bots or not -- no sense healing what we don't need
-			if (haveAirUnits) {
-				Robot[] nearAirBots = rc.senseNearbyAirRobots();
-				for (int i = 0; i < nearAirBots.length; i++) {
-					RobotInfo botInfo = rc.senseRobotInfo(nearAirBots[i]);
-					if (botInfo.team == rc.getTeam()) {
-						if (weakestBot == null)
-							weakestBot = nearGroundBots[i];
-						else if (rc.senseRobotInfo(weakestBot).energonLevel > botInfo.energonLevel)
-							weakestBot = nearGroundBots[i];
-					}
-				}
-			}
-		} catch (Exception e) {
-			System.out.println("caught exception:");
-			e.printStackTrace();
+	private int senseHealable() {
+		// air bots might not exist so...
+		// might want to make this conditional on whether we still need
+		// air bots or not -- no sense healing what we don't need
+		if (haveAirUnits) {
+			snapshot.senseAll();
+			return snapshot.count;
 		}
-		return weakestBot;
+		snapshot.senseGround();
+		return snapshot.groundCount;
 	}
 
-	private Robot findWeakestAdjacentBot() {
-		Robot[] nearGroundBots = rc.senseNearbyGroundRobots();
-		Robot weakestBot = null;
-		try {
-			// search for ground bots no matter what, they should exist
-			for (int i = 0; i < nearGroundBots.length; i++) {
-				RobotInfo botInfo = rc.senseRobotInfo(nearGroundBots[i]);
-
-				// if it is adjacent
-				if (botInfo.team == myTeam
-						&& botInfo.type != RobotType.ARCHON
-						&& distanceFrom(botInfo.location, rc.getLocation()) <= 1) {
-					if (weakestBot == null)
-						weakestBot = nearGroundBots[i];
-					else if (rc.senseRobotInfo(weakestBot).energonLevel > botInfo.energonLevel)
-						weakestBot = nearGroundBots[i];
-				}
-			}
+	/*
+	 * Finds the weakest ally in range. For archons to know who to heal.
+	 * Returns its snapshot index, or -1 if there is nobody around.
+	 */
+	private int findWeakestAlly() {
+		int end = senseHealable();
+		MapLocation currLoc = rc.getLocation();
+		return allySelector.select(AllySelector.LOWEST_ENERGON, end, currLoc
+				.getX(), currLoc.getY());
+	}
 
-			// air bots might not exist so...
-			// might want to make this conditional on whether we still need
-			// air bots or not -- no sense healing what we don't need
-			if (haveAirUnits) {
-				Robot[] nearAirBots = rc.senseNearbyAirRobots();
-				for (int i = 0; i < nearAirBots.length; i++) {
-					RobotInfo botInfo = rc.senseRobotInfo(nearAirBots[i]);
-
-					// if it is adjacent
-					if (distanceFrom(botInfo.location, rc.getLocation()) <= 1) {
-						if (botInfo.team == myTeam) {
-							if (weakestBot == null)
-								weakestBot = nearGroundBots[i];
-							else if (rc.senseRobotInfo(weakestBot).energonLevel > botInfo.energonLevel)
-								weakestBot = nearGroundBots[i];
-						}
-					}
-				}
-			}
-		} catch (Exception e) {
-			System.out.println("caught exception:");
-			e.printStackTrace();
-		}
-		return weakestBot;
+	/*
+	 * Finds the weakest non-archon ally the archon can transfer energon to
+	 * right now. Returns its snapshot index, or -1.
+	 */
+	private int findWeakestAdjacentBot() {
+		int end = senseHealable();
+		MapLocation currLoc = rc.getLocation();
+		return allySelector.select(AllySelector.LOWEST_ENERGON_ADJACENT, end,
+				currLoc.getX(), currLoc.getY());
 	}
 
 	/*
@@ -362,11 +604,13 @@ public class RobotPlayer implements Runnable {
 		try {
 			MapLocation[] archonLocs = rc.senseAlliedArchons();
 			MapLocation archonLoc = null;
+			int archonDistSq = 0;
 			for (int i = 0; i < archonLocs.length; i++) {
-				if (archonLoc == null)
-					archonLoc = archonLocs[i];
-				else if (distanceFrom(archonLoc) > distanceFrom(archonLocs[i]))
+				int distSq = distanceSqFrom(archonLocs[i]);
+				if (archonLoc == null || archonDistSq > distSq) {
 					archonLoc = archonLocs[i];
+					archonDistSq = distSq;
+				}
 			}
 			if (archonLoc != null) {
 				Direction archonDir = calcDirection(archonLoc);
@@ -384,23 +628,133 @@ public class RobotPlayer implements Runnable {
 		return closestArchon;
 	}
 
-	private Message findLeaderMessage(Message[] incomingMsgs) {
-		Message leaderMsg = null;
-		try {
-			// parse messages
+	/*
+	 * Finds this turn's orders from the robot we follow and merges the map
+	 * knowledge sent along with them. Returns the ORDERS record, or -1.
+	 */
+	private int findLeaderOrders() {
+		int orders = radio.find(Radio.ORDERS, following);
+		if (orders != -1) {
+			int record = radio.find(Radio.KNOWLEDGE, following);
+			if (record != -1)
+				mergeKnowledge(record);
+		}
+		return orders;
+	}
 
-			if (incomingMsgs != null) {
-				for (int i = 0; i < incomingMsgs.length; i++) {
-					// checks if it's a message from the leader
-					if (incomingMsgs[i].ints[0] == following)
-						leaderMsg = incomingMsgs[i];
-				}
+	/*
+	 * Queues our FORMATION record, with our troops in it as we see them this
+	 * round. When there is a tower to attack the slots are laid out around
+	 * it, otherwise around the given square.
+	 */
+	private void queueFormation(int order, MapLocation anchor,
+			MapLocation towerLoc, Direction dir) {
+		MapLocation currLoc = rc.getLocation();
+		formation.assign(currLoc.getX(), currLoc.getY());
+		formation.queue(radio, order, towerLoc != null ? towerLoc : anchor,
+				towerLoc, dir);
+	}
+
+	/*
+	 * For a new troop to find the archon it belongs to: whichever one lists
+	 * it in its formation. Only if none has after a few rounds does it go
+	 * looking for the closest archon itself.
+	 */
+	private void findSquad() {
+		int record = Formation.findMember(radio, myID);
+		if (record != -1) {
+			following = radio.sender(record);
+			formation.read(radio, record, myID);
+			indicate(0, following);
+		} else if (Clock.getRoundNum() - bornRound >= ADOPT_ROUNDS)
+			findMotherBot();
+	}
+
+	/*
+	 * Reads this round's plan from the archon we follow. If it has left us
+	 * out and another archon has taken us in, we follow that one instead. If
+	 * nothing was heard we keep to the last plan.
+	 */
+	private void readFormation() {
+		int record = radio.find(Radio.FORMATION, following);
+		if (record != -1 && formation.read(radio, record, myID))
+			return;
+
+		int other = Formation.findMember(radio, myID);
+		if (other != -1) {
+			following = radio.sender(other);
+			formation.read(radio, other, myID);
+		}
+	}
+
+	/*
+	 * Moves towards our slot in the formation or, once there, turns the way
+	 * the formation faces. Far from the slot the path planner is used; close
+	 * to it a greedy step does. Without a slot we head where the squad is
+	 * going.
+	 */
+	private void keepSlot() throws GameActionException {
+		if (working)
+			return;
+
+		MapLocation slot = formation.slot;
+		if (slot == null) {
+			if (formation.order == ATTACK) {
+				goalLoc = formation.target;
+				goalDir = formation.heading;
+				if (goalLoc != null || goalDir != null)
+					travel();
 			}
-		} catch (Exception e) {
-			System.out.println("Caught exception:");
-			e.printStackTrace();
+			return;
+		}
+
+		MapLocation currLoc = rc.getLocation();
+		int distance = Geometry.chebyshev(currLoc, slot);
+		if (distance == 0) {
+			Direction heading = formation.heading;
+			if (heading != null && heading != Direction.NONE
+					&& heading != Direction.OMNI
+					&& rc.getDirection() != heading)
+				rc.setDirection(heading);
+			return;
+		}
+		if (distance > SLOT_PLAN_DISTANCE) {
+			goalLoc = slot;
+			goalDir = calcDirection(slot);
+			travel();
+			return;
+		}
+
+		Direction dir = calcDirection(slot);
+		Direction step = dir;
+		if (!rc.canMove(step)) {
+			// somebody is standing in it, next to it will do
+			if (distance == 1)
+				return;
+			if (rc.canMove(dir.rotateLeft()))
+				step = dir.rotateLeft();
+			else if (rc.canMove(dir.rotateRight()))
+				step = dir.rotateRight();
+			else
+				return;
 		}
-		return leaderMsg;
+		if (rc.getDirection() != step)
+			rc.setDirection(step);
+		else
+			rc.moveForward();
+	}
+
+	/*
+	 * Hunts for goalLoc or goalDir with the planner, after taking in the map
+	 * knowledge and the path to the target that our archon passes on.
+	 */
+	private void travel() {
+		int record = radio.find(Radio.KNOWLEDGE, following);
+		if (record != -1)
+			mergeKnowledge(record);
+		if (goalLoc != null && goalLoc.equals(formation.target))
+			importSquadPath();
+		hunt();
 	}
 
 	/***************************************************************************
@@ -418,27 +772,23 @@ public class RobotPlayer implements Runnable {
 
 	private void soldier() {
 		try {
-			// get all messages
-			Message[] incomingMsgs = rc.getAllMessages();
-
 			// top priority is figuring out who to follow
 			// this should only be done once
-			if (fighterMom == null)
-				findMotherBot();
+			if (following == 0)
+				findSquad();
 
-			// look for mom's message
+			// take our place in the squad
 			else {
-				leaderMsg = findLeaderMessage(incomingMsgs);
+				readFormation();
 
 				if (rc.getRobotType().compareTo(RobotType.SOLDIER) == 0
 						&& rc.getEventualEnergonLevel() >= rc
 								.getMaxEnergonLevel() * 3 / 4) {
-					rc.yield();
 					rc.evolve(RobotType.MORTAR);
 					myType = RobotType.MORTAR;
-				}
+				} else
+					keepSlot();
 			}
-			rc.yield();
 		} catch (Exception e) {
 			System.out.println("caught exception:");
 			e.printStackTrace();
@@ -447,55 +797,61 @@ public class RobotPlayer implements Runnable {
 
 	// mortar variable
 	private void mortar() {
-		while (true) {
-			try {
-				while (rc.isMovementActive() || rc.isAttackActive()) {
-					rc.yield();
-				}
-
-				Message[] incomingMsgs = rc.getAllMessages();
-				// boolean canAttack = false; //if bot can attack the target
-				// get all messages
-
-				if (fighterMom != null)
-					leaderMsg = findLeaderMessage(incomingMsgs);
-				else
-					findMotherBot();
-
-				if (leaderMsg != null) {
-					//System.out.println("leader msg not null!");
-					if (leaderMsg.strings[1].equalsIgnoreCase("attack")) {
-						if (leaderMsg.locations[1] != null) {
-							RobotInfo towerInfo = null;
-							if (rc.canSenseSquare(leaderMsg.locations[1]))
-								towerInfo = rc
-										.senseRobotInfo(rc
-												.senseGroundRobotAtLocation(leaderMsg.locations[1]));
-
-							if ((towerInfo != null && towerInfo.team != myTeam)
-									|| towerInfo == null)
-								if (rc.canAttackSquare(leaderMsg.locations[1]))
-									rc.attackGround(leaderMsg.locations[1]);
-								else {
-									goalDir = calcDirection(leaderMsg.locations[1]);
-									hunt();
-								}
-						} else {
-							goalDir = msgDirection(leaderMsg.strings[2]);
-							if (goalDir != null)
-								hunt();
-						}
-					}
-				}
+		try {
+			// nothing to do until the last move or attack is through
+			if (rc.isMovementActive() || rc.isAttackActive())
+				return;
 
-				rc.yield();
-			} catch (Exception e) {
-				System.out.println("caught exception:");
-				e.printStackTrace();
+			if (following == 0) {
+				findSquad();
+				return;
 			}
+			readFormation();
+
+			MapLocation aim = null;
+			MapLocation towerLoc = formation.target;
+			if (formation.order == ATTACK && towerLoc != null) {
+				RobotInfo towerInfo = null;
+				if (rc.canSenseSquare(towerLoc))
+					towerInfo = rc.senseRobotInfo(rc
+							.senseGroundRobotAtLocation(towerLoc));
+
+				if ((towerInfo == null || towerInfo.team != myTeam)
+						&& rc.canAttackSquare(towerLoc))
+					aim = towerLoc;
+			}
+			if (aim == null)
+				aim = shellTarget();
+
+			if (aim != null)
+				rc.attackGround(aim);
+			else
+				keepSlot();
+		} catch (Exception e) {
+			System.out.println("caught exception:");
+			e.printStackTrace();
 		}
 	}
 
+	/*
+	 * Where to shell when the squad has no tower for us: whatever the map
+	 * knowledge our archon sends along says is the best bet. Shells take
+	 * MORTAR_DELAY_ROUNDS to land and only hit the square they land on, so
+	 * the best bet is where enemies have been staying, not where one was
+	 * last seen passing through.
+	 */
+	private MapLocation shellTarget() {
+		int record = radio.find(Radio.KNOWLEDGE, following);
+		if (record != -1)
+			mergeKnowledge(record);
+		MapLocation aim = knowledge.shellTarget(rc.getLocation(), myType
+				.attackRadiusMinSquared(), myType.attackRadiusMaxSquared(),
+				SHELL_SIGHTING_AGE);
+		if (aim == null || !rc.canAttackSquare(aim))
+			return null;
+		return aim;
+	}
+
 	private void sniper() {
 		try {
 
@@ -505,21 +861,45 @@ public class RobotPlayer implements Runnable {
 		}
 	}
 
+	/*
+	 * Indicator strings go out as a signal every time they are set, so only
+	 * set them when what they show has changed, and never unless DEBUG is on.
+	 */
+	private final static int NOT_A_NUMBER = Integer.MIN_VALUE;
+	private final String[] indicatorText = new String[3];
+	private final int[] indicatorValue = { NOT_A_NUMBER, NOT_A_NUMBER,
+			NOT_A_NUMBER };
+
+	private void indicate(int slot, String text) {
+		if (!DEBUG || text.equals(indicatorText[slot]))
+			return;
+		indicatorText[slot] = text;
+		indicatorValue[slot] = NOT_A_NUMBER;
+		rc.setIndicatorString(slot, text);
+	}
+
+	private void indicate(int slot, int value) {
+		if (!DEBUG || indicatorValue[slot] == value && indicatorText[slot] != null)
+			return;
+		indicate(slot, " " + value);
+		indicatorValue[slot] = value;
+	}
+
 	// archon variables
 	private boolean leader = false;
-	private String behavior = "none";
+	private int behavior = NO_ORDER;
 
 	private void archon() {
 		try {
 			// establish leadership if it has yet to be done
 			if (following == 0 && leader == false) {
 				designateLeader();
-				rc.setIndicatorString(1, " " + following);
-				rc.setIndicatorString(0, " " + leader);
+				indicate(1, following);
+				indicate(0, leader ? " true" : " false");
 			}
 
 			// if you are a leader, perform your leader duties
-			if (leader == true)
+			else if (leader == true)
 				archonLeader();
 
 			// else if you are a follower, act accordingly
@@ -536,49 +916,36 @@ public class RobotPlayer implements Runnable {
 	 * ADDITIONAL ARCHON ROUTINES
 	 **************************************************************************/
 	private void designateLeader() {
-		Message establishLeaderMsg = null;
 		try {
-			Message[] incomingMsgs = rc.getAllMessages();
-			// Message establishLeaderMsg = null;
-			// parse messages
-			if (incomingMsgs != null) {
-				for (int i = 0; i < incomingMsgs.length; i++) {
-					// checks if it's an establish leader message
-					if (incomingMsgs[i].strings[0].equals("establishLeader"))
-						establishLeaderMsg = incomingMsgs[i];
-				}
-			}
+			// the latest establish leader message
+			int establishLeader = -1;
+			for (int r = radio.first(Radio.ESTABLISH_LEADER); r != -1; r = radio
+					.next(r))
+				establishLeader = r;
 
 			// initially establish leadership
-			if (establishLeaderMsg == null && leader == false && following == 0) {
+			if (establishLeader == -1 && leader == false && following == 0) {
 				// the first robot assumes leadership and communicates his ID
 				leader = true;
-				// make a new message saying "hey I'm chief, who wants to follow
-				// me?"
-				Message msg = new Message();
-				msg.strings = new String[1];
-				msg.strings[0] = "establishLeader";
-				msg.ints = new int[3];
-				msg.ints[0] = rc.getRobot().getID();
-				msg.ints[1] = 1; // the number of bots within the unit so far
-				rc.broadcast(msg);
+				// "hey I'm chief, who wants to follow me?"
+				radio.startRecord(Radio.ESTABLISH_LEADER);
+				radio.put(myID);
+				radio.put(1); // the number of bots within the unit so far
 			} else {
 				// other archons decide to follow the leader
-				if (leader == false && following == 0
-						&& establishLeaderMsg != null) {
-					if (establishLeaderMsg.ints[1] < 4) {
-						following = establishLeaderMsg.ints[0];
-
-						// this particular leader has a new follower, so update
-						// count of bots within squad
-						establishLeaderMsg.ints[1]++;
-
-						// broadcast the updated message
-						rc.broadcast(establishLeaderMsg);
+				if (leader == false && following == 0 && establishLeader != -1) {
+					int squadSize = radio.get(establishLeader, 1);
+					if (squadSize < 4) {
+						following = radio.get(establishLeader, 0);
+
+						// this particular leader has a new follower, so pass
+						// on the updated count of bots within squad
+						radio.startRecord(Radio.ESTABLISH_LEADER);
+						radio.put(following);
+						radio.put(squadSize + 1);
 					}
 				}
 			}
-			rc.yield();
 		} catch (Exception e) {
 			System.out.println("Caught Exception:");
 			e.printStackTrace();
@@ -587,87 +954,84 @@ public class RobotPlayer implements Runnable {
 
 	private int alliedSquadLeader = 0;
 
+	// archon leader variables
+	private int wake_delay = 0;
+	private int start_morph_delay = 0;
+
 	// archon leader action routines
 	private void archonLeader() {
-		int wake_delay = 0;
-		int start_morph_delay = 0;
-		while (true) {
-			try {
-
-				working = rc.isMovementActive()
-						|| rc.getRoundsUntilAttackIdle() != 0
-						|| rc.getRoundsUntilMovementIdle() != 0;
-
-				boolean broadcasted = false;
-				// get msgs
-				Message[] incomingMsgs = rc.getAllMessages();
-				// parse messages
-				// look for a message from the other leader to establish who it
-				// is
-				if (incomingMsgs != null && alliedSquadLeader == 0) {
-					for (int i = 0; i < incomingMsgs.length; i++) {
-						// checks if it's a message from another leader
-						if (incomingMsgs[i].strings[0].equals("leaderMsg")
-								&& incomingMsgs[i].ints[0] != rc.getRobot()
-										.getID())
-							alliedSquadLeader = incomingMsgs[i].ints[0];
-					}
+		try {
+			MapLocation leaderLoc = rc.getLocation();
+			// look for orders from the other leader to establish who it is
+			if (alliedSquadLeader == 0) {
+				for (int r = radio.first(Radio.ORDERS); r != -1; r = radio
+						.next(r)) {
+					int squadLeader = radio.get(r, ORDERS_LEADER);
+					if (squadLeader != myID)
+						alliedSquadLeader = squadLeader;
 				}
-				// prepare the message
-				Message msg = new Message();
-				msg.strings = new String[3];
-				msg.locations = new MapLocation[2];
-				msg.ints = new int[2];
-
-				// you're the leader, add the location to the broadcast
-				msg.strings[0] = "leaderMsg";
-				msg.locations[0] = rc.getLocation();
-				msg.ints[0] = rc.getRobot().getID();
-
-				//System.out.println(start_morph_delay + " "
-				//		+ Clock.getRoundNum() + " " + wake_delay);
-				if (Clock.getRoundNum() - start_morph_delay < wake_delay) {
-					msg.strings[1] = "idle";
-				} else {
-					countSquad(); // count the number of troops close by
+			}
+			// pick up what the other squad has seen
+			if (alliedSquadLeader != 0) {
+				int record = radio.find(Radio.KNOWLEDGE, alliedSquadLeader);
+				if (record != -1)
+					mergeKnowledge(record);
+			}
 
-					int soldiersNeeded = 0;
+			// prepare the orders
+			int order;
+			int soldiersNeeded = 0;
+			MapLocation towerLoc = null;
+			int[] squadPath = null;
+
+			if (DEBUG)
+				System.out.println(start_morph_delay + " "
+						+ Clock.getRoundNum() + " " + wake_delay);
+			if (Clock.getRoundNum() - start_morph_delay < wake_delay) {
+				order = IDLE;
+			} else {
+				countSquad(); // count the number of troops close by
 
-					if (troopNum() < MIN_SOLDIER_NUM) {
-						soldiersNeeded = MIN_SOLDIER_NUM - soldierNum;
-						msg.ints[1] = soldiersNeeded;
-						msg.strings[1] = SPAWN_STRING;
+				if (troopNum() < MIN_SOLDIER_NUM) {
+					soldiersNeeded = MIN_SOLDIER_NUM - soldierNum;
+					order = SPAWN;
 
-						if (mortarNum < MIN_MORTAR_NUM) {
-							start_morph_delay = Clock.getRoundNum();
-							wake_delay = 150;
-						}
+					if (mortarNum < MIN_MORTAR_NUM) {
+						start_morph_delay = Clock.getRoundNum();
+						wake_delay = 150;
+					}
 
-						rc.setIndicatorString(0, " " + soldiersNeeded);
-						rc.setIndicatorString(1, " " + following);
-					} else {
+					indicate(0, soldiersNeeded);
+					indicate(1, following);
+				} else {
 
-						designateTarget();
-						msg.strings[1] = ATTACK_STRING;
-						msg.strings[2] = goalDir.toString();
+					designateTarget();
+					order = ATTACK;
 
-						if (targetInfo != null && targetInfo.team != myTeam)
-							msg.locations[1] = targetInfo.location;
-						else if (!working && furthestArchonDist() < 8) {
-							if (targetInfo == null)
-								hunt();
-						}
+					if (targetInfo != null && targetInfo.team != myTeam) {
+						towerLoc = targetInfo.location;
+						squadPath = squadPath(towerLoc);
+					}
+					else if (!working && furthestArchonDistSq() < 64) {
+						if (targetInfo == null)
+							hunt();
 					}
 				}
-				if (!broadcasted)
-					rc.broadcast(msg);
+			}
 
-				rc.yield();
+			// you're the leader, send your location, orders and what you know
+			// in one broadcast
+			queueOrders(myID, order, soldiersNeeded, leaderLoc, towerLoc,
+					order == ATTACK ? goalDir : null);
+			queueFormation(order, leaderLoc, towerLoc,
+					order == ATTACK ? goalDir : null);
+			if (squadPath != null)
+				queueSquadPath(towerLoc, squadPath);
+			queueKnowledge();
 
-			} catch (Exception e) {
-				System.out.println("Caught exception:");
-				e.printStackTrace();
-			}
+		} catch (Exception e) {
+			System.out.println("Caught exception:");
+			e.printStackTrace();
 		}
 	}
 
@@ -680,64 +1044,68 @@ public class RobotPlayer implements Runnable {
 	private void archonFollower() {
 		try {
 			// prioritize healing bots in adjacent squares
-			Robot weakAdjAlly = findWeakestAdjacentBot();
-			if (weakAdjAlly != null && needsHealing(weakAdjAlly))
+			int weakAdjAlly = findWeakestAdjacentBot();
+			if (weakAdjAlly != -1 && needsHealing(weakAdjAlly))
 				archonHeal(weakAdjAlly);
 
-			// get all msgs
-			Message[] incomingMsgs = rc.getAllMessages();
-			leaderMsg = findLeaderMessage(incomingMsgs);
+			leaderOrders = findLeaderOrders();
 
 			// get orders
-			if (leaderMsg != null) {
-				if (leaderMsg.strings[1].equalsIgnoreCase(SPAWN_STRING))
-					behavior = "spawn";
-				else if (leaderMsg.strings[1].equalsIgnoreCase(ATTACK_STRING))
-					behavior = "attack";
+			if (leaderOrders != -1) {
+				int order = radio.get(leaderOrders, ORDERS_ORDER);
+				if (order == SPAWN || order == ATTACK)
+					behavior = order;
 
 				// spawn
-				if (behavior.equals(SPAWN_STRING)) {
-					MapLocation spawnLoc = spaceToSpawn();
-					if (rc.canSpawn()
-							&& spawnLoc != rc.getLocation()
-							&& rc.getEnergonLevel() > 2 * RobotType.SOLDIER
-									.spawnCost()) {
-						Direction spawnDir = calcDirection(spawnLoc);
-						if (spawnDir == rc.getDirection()) {
+				if (behavior == SPAWN) {
+					queueFormation(SPAWN, rc.getLocation(), null, null);
+					// only look for room once we could use it, towards the
+					// leader where the squad gathers
+					if (rc.getEnergonLevel() > 2 * RobotType.SOLDIER
+							.spawnCost()
+							&& rc.canSpawn()) {
+						Direction spawnDir = spawner.choose(radio.getLocation(
+								leaderOrders, ORDERS_LEADER_LOC));
+						if (spawnDir != null && spawnDir == rc.getDirection()) {
 							rc.spawn(RobotType.SOLDIER);
-							spawnLocation = rc.getLocation().add(
-									rc.getDirection());
-						} else if (!working)
+							spawnLocation = rc.getLocation().add(spawnDir);
+						} else if (spawnDir != null && !working)
 							rc.setDirection(spawnDir);
 					}
-				} else if (behavior.equals(ATTACK_STRING)) {
+				} else if (behavior == ATTACK) {
 					// where we're headed from what the leader tells us
-					goalDir = msgDirection(leaderMsg.strings[2]);
-					MapLocation goalLoc = leaderMsg.locations[1];
+					goalDir = orderDirection(leaderOrders);
+					goalLoc = null;
+					MapLocation towerLoc = radio.getLocation(leaderOrders,
+							ORDERS_TARGET);
 					targetInfo = null;
 
-					if (goalLoc != null && rc.canSenseSquare(goalLoc))
-						target = rc.senseGroundRobotAtLocation(goalLoc);
+					if (towerLoc != null && rc.canSenseSquare(towerLoc))
+						target = rc.senseGroundRobotAtLocation(towerLoc);
 
-					if (goalLoc == null) {
+					if (towerLoc == null) {
 						target = searchForTower();
 						if (target != null) {
-							targetInfo = rc.senseRobotInfo(target);
+							targetInfo = robotInfo(target);
 							if (targetInfo.team != myTeam)
-								leaderMsg.locations[1] = targetInfo.location;
+								towerLoc = targetInfo.location;
 						}
 					}
-					// splice in the new ID
-					leaderMsg.ints[0] = rc.getRobot().getID();
-					rc.broadcast(leaderMsg);
 
-					if (!working && leaderMsg.locations[1] == null && goalDir != null)
+					// pass the orders on to our troops as a formation, and
+					// what the leader and we know, merged
+					queueFormation(order, rc.getLocation(), towerLoc, goalDir);
+					int record = radio.find(Radio.SQUAD_PATH, following);
+					if (record != -1)
+						radio.relay(record);
+					queueKnowledge();
+
+					if (!working && towerLoc == null && goalDir != null)
 						hunt();
 				}
 			}
-			rc.setIndicatorString(2, behavior);
+			indicate(2, behavior == NO_ORDER ? "none" : ORDER_NAMES[behavior]);
 			// rc.setIndicatorString(1, " " + following);
-			rc.yield();
 
 		} catch (Exception e) {
 			System.out.println("Caught Exception:");
@@ -747,10 +1115,11 @@ public class RobotPlayer implements Runnable {
 
 	/*
 	 * Method for the archon to heal a specified bot to the best of its ability.
+	 * The bot is given by its index in this round's snapshot.
 	 */
-	private void archonHeal(Robot hurtBot) {
+	private void archonHeal(int hurtBot) {
 		try {
-			RobotInfo hurtBotInfo = rc.senseRobotInfo(hurtBot);
+			RobotInfo hurtBotInfo = snapshot.info[hurtBot];
 			if (rc.getEnergonLevel() > RobotType.ARCHON.maxEnergon() / 8
 					&& hurtBotInfo.eventualEnergon < hurtBotInfo.type
 							.maxEnergon()) {
@@ -765,7 +1134,7 @@ public class RobotPlayer implements Runnable {
 						.getEnergonLevel()
 						- RobotType.ARCHON.energonUpkeep());
 				rc.transferEnergon(transferAmount, hurtBotInfo.location,
-						hurtBot.getRobotLevel());
+						snapshot.robots[hurtBot].getRobotLevel());
 
 			}
 
@@ -775,17 +1144,8 @@ public class RobotPlayer implements Runnable {
 		}
 	}
 
-	private boolean needsHealing(Robot bot) {
-		boolean needToHeal = false;
-		try {
-			RobotInfo botInfo = rc.senseRobotInfo(bot);
-			if (botInfo.energonLevel < botInfo.maxEnergon / 2)
-				needToHeal = true;
-		} catch (Exception e) {
-			System.out.println("Caught exception:");
-			e.printStackTrace();
-		}
-		return needToHeal;
+	private boolean needsHealing(int bot) {
+		return snapshot.energon[bot] < snapshot.maxEnergon[bot] / 2;
 	}
 	
 	/*
@@ -806,13 +1166,12 @@ public class RobotPlayer implements Runnable {
 	 */
 	private void countSquad() {
 		// sense nearby bots and then process the info
-		Robot[] nearbyGroundRobots = rc.senseNearbyGroundRobots();
+		snapshot.senseGround();
 		try {
 			resetCount();
-			for (int i = 0; i < nearbyGroundRobots.length; i++) {
-				RobotInfo roboInfo = rc.senseRobotInfo(nearbyGroundRobots[i]);
-				if (roboInfo.team.equals(rc.getTeam())) {
-					switch (roboInfo.type) {
+			for (int i = 0; i < snapshot.groundCount; i++) {
+				if (snapshot.isAlly(i)) {
+					switch (ROBOT_TYPES[snapshot.type[i]]) {
 					case ARCHON:
 						archonNum++;
 						break;
@@ -844,98 +1203,6 @@ public class RobotPlayer implements Runnable {
 		return soldierNum + sniperNum + mortarNum + scoutNum + bomberNum;
 	}
 
-	/*
-	 * Have archon check to see if there is room around him to spawn. PROBABLY
-	 * WILL NOT USE. HERE ANYWAY. NEEDS ADJUSTMENT--rc.canMove(direction) -to
-	 * check for obstacles
-	 */
-	private boolean haveRoomToSpawn() {
-		boolean isNEmpty = false, isSEmpty = false, isEEmpty = false, isWEmpty = false, isNEEmpty = false, isNWEmpty = false, isSEEmpty = false, isSWEmpty = false;
-		try {
-			MapLocation currLoc = rc.getLocation(); // current locatoin of
-													// archon
-
-			// whether or not there is a ground robot in all directions
-			isNEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.NORTH)) == null;
-			isSEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.SOUTH)) == null;
-			isEEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.EAST)) == null;
-			isWEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.WEST)) == null;
-			isNEEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.NORTH_EAST)) == null;
-			isNWEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.NORTH_WEST)) == null;
-			isSEEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.SOUTH_EAST)) == null;
-			isSWEmpty = rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.SOUTH_WEST)) == null;
-
-		} catch (Exception e) {
-			System.out.println("Caught Exception");
-			e.printStackTrace();
-		}
-		return isNEmpty || isSEmpty || isEEmpty || isWEmpty || isNEEmpty
-				|| isNWEmpty || isSEEmpty || isSWEmpty;
-	}
-
-	/*
-	 * Check to see if any of the adjacent squares are available to spawn into.
-	 * As soon as an empty space is found, return location.
-	 */
-	private MapLocation spaceToSpawn() {
-		MapLocation currLoc = null;
-		try {
-			currLoc = rc.getLocation(); // current location of archon
-
-			// the can move part makes sure there is not a generic obstacle at
-			// the
-			// particular adjacent location
-			if (rc.senseGroundRobotAtLocation(currLoc.add(Direction.NORTH)) == null
-					&& rc.canMove(Direction.NORTH))
-				return currLoc.add(Direction.NORTH);
-
-			else if (rc
-					.senseGroundRobotAtLocation(currLoc.add(Direction.SOUTH)) == null
-					&& rc.canMove(Direction.SOUTH))
-				return currLoc.add(Direction.SOUTH);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc.add(Direction.EAST)) == null
-					&& rc.canMove(Direction.EAST))
-				return currLoc.add(Direction.EAST);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc.add(Direction.WEST)) == null
-					&& rc.canMove(Direction.WEST))
-				return currLoc.add(Direction.WEST);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.NORTH_EAST)) == null
-					&& rc.canMove(Direction.NORTH_EAST))
-				return currLoc.add(Direction.NORTH_EAST);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.NORTH_WEST)) == null
-					&& rc.canMove(Direction.NORTH_WEST))
-				return currLoc.add(Direction.NORTH_WEST);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.SOUTH_EAST)) == null
-					&& rc.canMove(Direction.SOUTH_EAST))
-				return currLoc.add(Direction.SOUTH_EAST);
-
-			else if (rc.senseGroundRobotAtLocation(currLoc
-					.add(Direction.SOUTH_WEST)) == null
-					&& rc.canMove(Direction.SOUTH_WEST))
-				return currLoc.add(Direction.SOUTH_WEST);
-		} catch (Exception e) {
-			System.out.println("Caught Exception:");
-			e.printStackTrace();
-		}
-		return currLoc;
-	}
-
 	/**
 	 * Other Bot SubRoutines
 	 */
@@ -953,7 +1220,7 @@ public class RobotPlayer implements Runnable {
 			// this should not be null
 			if (fighterMom != null) {
 				following = fighterMom.getID();
-				rc.setIndicatorString(0, "" + following);
+				indicate(0, following);
 			}
 		} catch (Exception e) {
 			System.out.println("Caught exception:");
@@ -962,41 +1229,16 @@ public class RobotPlayer implements Runnable {
 	}
 
 	/*
-	 * Takes a string and interprets which direction to move in from the string.
+	 * Squared distance to the allied archon furthest away from us.
 	 */
-	private Direction msgDirection(String msgDir) {
-		try {
-			if (msgDir != null) {
-				if (msgDir.equalsIgnoreCase(Direction.NORTH.toString()))
-					return Direction.NORTH;
-				if (msgDir.equalsIgnoreCase(Direction.SOUTH.toString()))
-					return Direction.SOUTH;
-				if (msgDir.equalsIgnoreCase(Direction.EAST.toString()))
-					return Direction.EAST;
-				if (msgDir.equalsIgnoreCase(Direction.WEST.toString()))
-					return Direction.WEST;
-				if (msgDir.equalsIgnoreCase(Direction.NORTH_EAST.toString()))
-					return Direction.NORTH_EAST;
-				if (msgDir.equalsIgnoreCase(Direction.NORTH_WEST.toString()))
-					return Direction.NORTH_WEST;
-				if (msgDir.equalsIgnoreCase(Direction.SOUTH_EAST.toString()))
-					return Direction.SOUTH_EAST;
-				if (msgDir.equalsIgnoreCase(Direction.SOUTH_WEST.toString()))
-					return Direction.SOUTH_WEST;
-			}
-		} catch (Exception e) {
-			System.out.println("Caught exception:");
-			e.printStackTrace();
-		}
-		return null;
-	}
-
-	private double furthestArchonDist() {
-		double farArchonDist = 0;
+	private int furthestArchonDistSq() {
+		int farArchonDist = 0;
 		try {
 			MapLocation[] archonLocs = rc.senseAlliedArchons();
+			MapLocation currLoc = rc.getLocation();
 			for (int i = 0; i < archonLocs.length; i++) {
-				double distFromArchon = distanceFrom(archonLocs[i]);
+				int distFromArchon = Geometry.distanceSquared(currLoc,
+						archonLocs[i]);
 				if (distFromArchon > farArchonDist)
 					farArchonDist = distFromArchon;
 			}
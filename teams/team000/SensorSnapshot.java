@@ -0,0 +1,167 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Round-scoped snapshot of the robots this bot can sense. The nearby robot
+ * lists are sensed at most once per Clock round, and every RobotInfo is
+ * flattened into parallel primitive arrays so the search helpers in
+ * RobotPlayer can scan them without going back to the RobotController.
+ *
+ * Ground robots occupy indices [0, groundCount) and air robots, if they have
+ * been asked for this round, occupy [groundCount, count).
+ */
+public class SensorSnapshot {
+	private final static int INITIAL_CAPACITY = 32;
+
+	private final RobotController rc;
+
+	// ordinal of our own team, so queries compare ints instead of enums
+	final int myTeam;
+
+	// round each half of the snapshot was last filled in
+	private int groundRound = -1;
+	private int airRound = -1;
+
+	int groundCount = 0;
+	int count = 0;
+
+	Robot[] robots = new Robot[INITIAL_CAPACITY];
+	RobotInfo[] info = new RobotInfo[INITIAL_CAPACITY];
+	int[] team = new int[INITIAL_CAPACITY];
+	int[] type = new int[INITIAL_CAPACITY];
+	double[] energon = new double[INITIAL_CAPACITY];
+	double[] maxEnergon = new double[INITIAL_CAPACITY];
+	double[] eventualEnergon = new double[INITIAL_CAPACITY];
+	int[] x = new int[INITIAL_CAPACITY];
+	int[] y = new int[INITIAL_CAPACITY];
+
+	public SensorSnapshot(RobotController rC) {
+		rc = rC;
+		myTeam = rc.getTeam().ordinal();
+	}
+
+	/*
+	 * Makes sure the ground robots for this round have been sensed. Sensing
+	 * the ground again throws away any air robots appended to the snapshot.
+	 */
+	public void senseGround() {
+		int round = Clock.getRoundNum();
+		if (groundRound == round)
+			return;
+
+		Robot[] nearGroundBots = rc.senseNearbyGroundRobots();
+		count = 0;
+		ensureCapacity(nearGroundBots.length);
+		for (int i = 0; i < nearGroundBots.length; i++)
+			record(nearGroundBots[i]);
+
+		groundCount = count;
+		groundRound = round;
+		airRound = -1;
+	}
+
+	/*
+	 * Makes sure both the ground and the air robots for this round have been
+	 * sensed.
+	 */
+	public void senseAll() {
+		senseGround();
+		int round = Clock.getRoundNum();
+		if (airRound == round)
+			return;
+
+		Robot[] nearAirBots = rc.senseNearbyAirRobots();
+		ensureCapacity(groundCount + nearAirBots.length);
+		for (int i = 0; i < nearAirBots.length; i++)
+			record(nearAirBots[i]);
+
+		airRound = round;
+	}
+
+	/*
+	 * Returns the snapshot index of a robot, or -1 if it was not sensed this
+	 * round.
+	 */
+	public int indexOf(Robot bot) {
+		for (int i = 0; i < count; i++) {
+			if (robots[i] == bot)
+				return i;
+		}
+		return -1;
+	}
+
+	public boolean isAlly(int i) {
+		return team[i] == myTeam;
+	}
+
+	public boolean isType(int i, RobotType robotType) {
+		return type[i] == robotType.ordinal();
+	}
+
+	/*
+	 * Appends one robot to the end of the snapshot. A robot that dies or moves
+	 * out of range between the two sense calls is simply left out.
+	 */
+	private void record(Robot bot) {
+		try {
+			RobotInfo botInfo = rc.senseRobotInfo(bot);
+			int i = count;
+			robots[i] = bot;
+			info[i] = botInfo;
+			team[i] = botInfo.team.ordinal();
+			type[i] = botInfo.type.ordinal();
+			energon[i] = botInfo.energonLevel;
+			maxEnergon[i] = botInfo.maxEnergon;
+			eventualEnergon[i] = botInfo.eventualEnergon;
+			x[i] = botInfo.location.getX();
+			y[i] = botInfo.location.getY();
+			count++;
+		} catch (GameActionException e) {
+			// out of sensor range already, nothing to record
+		}
+	}
+
+	/*
+	 * Grows the parallel arrays. Only happens when a round sees more robots
+	 * than any round before it.
+	 */
+	private void ensureCapacity(int needed) {
+		if (needed <= robots.length)
+			return;
+
+		int size = robots.length;
+		while (size < needed)
+			size *= 2;
+
+		Robot[] newRobots = new Robot[size];
+		RobotInfo[] newInfo = new RobotInfo[size];
+		int[] newTeam = new int[size];
+		int[] newType = new int[size];
+		double[] newEnergon = new double[size];
+		double[] newMaxEnergon = new double[size];
+		double[] newEventualEnergon = new double[size];
+		int[] newX = new int[size];
+		int[] newY = new int[size];
+
+		System.arraycopy(robots, 0, newRobots, 0, count);
+		System.arraycopy(info, 0, newInfo, 0, count);
+		System.arraycopy(team, 0, newTeam, 0, count);
+		System.arraycopy(type, 0, newType, 0, count);
+		System.arraycopy(energon, 0, newEnergon, 0, count);
+		System.arraycopy(maxEnergon, 0, newMaxEnergon, 0, count);
+		System.arraycopy(eventualEnergon, 0, newEventualEnergon, 0, count);
+		System.arraycopy(x, 0, newX, 0, count);
+		System.arraycopy(y, 0, newY, 0, count);
+
+		robots = newRobots;
+		info = newInfo;
+		team = newTeam;
+		type = newType;
+		energon = newEnergon;
+		maxEnergon = newMaxEnergon;
+		eventualEnergon = newEventualEnergon;
+		x = newX;
+		y = newY;
+	}
+}
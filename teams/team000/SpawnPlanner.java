@@ -0,0 +1,95 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * Picks the square next to an archon to spawn a ground unit into.
+ *
+ * The spawn direction is the free neighbour nearest to the preferred
+ * direction: straight away from the closest enemy in view, or else towards
+ * the target, clockwise first on ties. Units spawn into the square the
+ * archon faces, so if the archon already faces a free square no more than a
+ * quarter turn from the preferred direction, that square is taken and the
+ * unit is spawned this round instead of after a turn.
+ *
+ * Squares are looked at with rc.canMove, nearest first, stopping at the
+ * first free one. canMove answers for terrain and ground robots at once,
+ * and at a flat 25 bytecodes it is cheaper than finding the square in the
+ * sensing snapshot or the terrain grid; the first square looked at is
+ * nearly always free, so building a mask of all eight first does not pay.
+ */
+public class SpawnPlanner {
+	private final static Direction[] DIRECTIONS = Direction.values();
+
+	// offsets from the preferred direction, nearest first
+	private final static int[] SEARCH_ORDER = { 0, 1, 7, 2, 6, 3, 5, 4 };
+
+	private final RobotController rc;
+	private final SensorSnapshot snapshot;
+	private final int enemyTeam;
+
+	public SpawnPlanner(RobotController rC, SensorSnapshot snap) {
+		rc = rC;
+		snapshot = snap;
+		enemyTeam = rc.getTeam().opponent().ordinal();
+	}
+
+	/*
+	 * The direction to spawn in, or null if every neighbour is taken. target
+	 * may be null.
+	 */
+	public Direction choose(MapLocation target) {
+		Direction facing = rc.getDirection();
+		int f = facing.ordinal();
+		int want = preferred(target);
+		if (f < 8) {
+			if (want == -1)
+				want = f;
+			if ((((f - want) & 7) <= 2 || ((want - f) & 7) <= 2)
+					&& rc.canMove(facing))
+				return facing;
+		} else if (want == -1)
+			want = 0;
+
+		for (int k = 0; k < 8; k++) {
+			Direction dir = DIRECTIONS[(want + SEARCH_ORDER[k]) & 7];
+			if (rc.canMove(dir))
+				return dir;
+		}
+		return null;
+	}
+
+	/*
+	 * Direction ordinal to spawn towards, or -1 for no preference.
+	 */
+	private int preferred(MapLocation target) {
+		snapshot.senseGround();
+		MapLocation here = rc.getLocation();
+		int x = here.getX();
+		int y = here.getY();
+
+		int closest = -1;
+		int closestDistSq = 0;
+		int[] team = snapshot.team;
+		for (int i = 0; i < snapshot.groundCount; i++) {
+			if (team[i] != enemyTeam)
+				continue;
+			int distSq = Geometry.distanceSquared(x, y, snapshot.x[i],
+					snapshot.y[i]);
+			if (closest == -1 || distSq < closestDistSq) {
+				closest = i;
+				closestDistSq = distSq;
+			}
+		}
+
+		Direction dir;
+		if (closest != -1)
+			dir = Geometry.directionTo(snapshot.x[closest], snapshot.y[closest],
+					x, y);
+		else if (target != null)
+			dir = Geometry.directionTo(x, y, target.getX(), target.getY());
+		else
+			return -1;
+		return dir == Direction.NONE ? -1 : dir.ordinal();
+	}
+}
@@ -0,0 +1,16 @@
+package team000;
+
+import battlecode.common.*;
+
+/*
+ * A unit of work run by the TaskScheduler once per round.
+ */
+public interface Task {
+	/*
+	 * Does as much of the work as fits before the round's bytecode count
+	 * reaches bytecodeLimit. Returns true if there is nothing left to do this
+	 * round, false if the work goes on next round; either way the task is
+	 * run again next round at its own priority.
+	 */
+	public boolean run(int bytecodeLimit) throws GameActionException;
+}
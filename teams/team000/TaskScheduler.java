@@ -0,0 +1,93 @@
+package team000;
+
+import battlecode.common.*;
+import static battlecode.common.GameConstants.*;
+
+/*
+ * Runs a robot's tasks in priority order each round for as long as the
+ * round's bytecodes last, so the turn ends at a yield we chose instead of
+ * wherever the bytecode limit happens to cut it off.
+ *
+ * A task only starts if its estimated cost still fits in the round. A task
+ * that did not start gains AGE_BOOST priority for every round it waits, up
+ * to MAX_AGE_BOOST, so it can move ahead of the tasks just above it but
+ * never climb over all of them. A task that started but did not finish has
+ * had the rest of the round and keeps its own priority; otherwise work that
+ * never finishes, like a long path search, would soon outrank everything
+ * and take every round.
+ */
+public class TaskScheduler {
+	private final static int MAX_TASKS = 8;
+
+	// bytecodes kept back for the yield and the main loop
+	private final static int YIELD_RESERVE = 200;
+
+	private final static int AGE_BOOST = 10;
+	private final static int MAX_AGE_BOOST = 15;
+
+	private final Task[] tasks = new Task[MAX_TASKS];
+	private final int[] priority = new int[MAX_TASKS];
+	private final int[] cost = new int[MAX_TASKS];
+	private final int[] age = new int[MAX_TASKS];
+	// priority with the age boost, worked out once a round
+	private final int[] boosted = new int[MAX_TASKS];
+	// the round each task last ran or was put off in
+	private final int[] handledRound = new int[MAX_TASKS];
+	private int taskCount = 0;
+
+	/*
+	 * Registers a task. Higher priorities run first; estimatedCost is the
+	 * most bytecodes the task is expected to use in one run.
+	 */
+	public void add(Task task, int taskPriority, int estimatedCost) {
+		tasks[taskCount] = task;
+		priority[taskCount] = taskPriority;
+		cost[taskCount] = estimatedCost;
+		handledRound[taskCount] = -1;
+		taskCount++;
+	}
+
+	/*
+	 * Runs tasks until every one of them has run or been put off this round.
+	 * Stops early if a task ran over into the next round.
+	 */
+	public void runRound() {
+		int round = Clock.getRoundNum();
+		int limit = BYTECODES_PER_ROUND - YIELD_RESERVE;
+		int[] handled = handledRound;
+		int[] p = boosted;
+		for (int i = taskCount; --i >= 0;) {
+			int boost = age[i] * AGE_BOOST;
+			p[i] = priority[i]
+					+ (boost > MAX_AGE_BOOST ? MAX_AGE_BOOST : boost);
+		}
+
+		while (Clock.getRoundNum() == round) {
+			int next = -1;
+			int nextPriority = Integer.MIN_VALUE;
+			for (int i = 0; i < taskCount; i++) {
+				if (handled[i] != round && p[i] > nextPriority) {
+					next = i;
+					nextPriority = p[i];
+				}
+			}
+			if (next == -1)
+				return;
+
+			handled[next] = round;
+			if (Clock.getBytecodeNum() + cost[next] > limit) {
+				age[next]++;
+				continue;
+			}
+
+			try {
+				tasks[next].run(limit);
+			} catch (Exception e) {
+				System.out.println("Caught Exception:");
+				e.printStackTrace();
+			}
+
+			age[next] = 0;
+		}
+	}
+}
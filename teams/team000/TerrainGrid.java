@@ -0,0 +1,260 @@
+package team000;
+
+import battlecode.common.*;
+import static battlecode.common.GameConstants.*;
+
+/*
+ * Occupancy grid of the terrain this robot has seen, kept as two bitsets:
+ * whether a square has been sensed yet and whether ground units can stand on
+ * it. The grid is centred on the square the robot was created on and is
+ * twice the largest map size across, so every square of the map fits no
+ * matter where on it we started.
+ *
+ * Squares nobody has sensed yet are treated as passable by the planner.
+ *
+ * What we learn is passed on a word of the bitsets at a time: export()
+ * writes the words that gained squares since they were last sent, and
+ * merge() takes in words a teammate sent, from its own grid. Words a merge
+ * adds to are queued to be sent on in turn, so terrain spreads down the
+ * squad. Once nothing new is queued, export() goes round the known words
+ * again, for robots that were out of range the first time.
+ */
+public class TerrainGrid {
+	public final static int WIDTH = 2 * MAP_MAX_WIDTH + 1;
+	public final static int HEIGHT = 2 * MAP_MAX_HEIGHT + 1;
+	public final static int SIZE = WIDTH * HEIGHT;
+	private final static int WORDS = (SIZE + 31) >>> 5;
+
+	// ints export() writes per word: index, known bits, blocked bits
+	public final static int WORD_INTS = 3;
+
+	private final RobotController rc;
+
+	// map coordinates of grid square 0
+	private final int originX, originY;
+
+	private final int[] known = new int[WORDS];
+	private final int[] blocked = new int[WORDS];
+
+	// words with squares not yet sent, oldest first, and which are queued
+	private final int[] changed = new int[WORDS];
+	private int changedHead = 0, changedCount = 0;
+	private final int[] queued = new int[(WORDS + 31) >>> 5];
+	// next word to send again once nothing new is queued
+	private int resendCursor = 0;
+
+	// resumable scan of the squares around the robot
+	private int scanX = Integer.MIN_VALUE, scanY = Integer.MIN_VALUE;
+	private int scanCursor = 0;
+
+	public TerrainGrid(RobotController rC) {
+		rc = rC;
+		MapLocation start = rc.getLocation();
+		originX = start.getX() - MAP_MAX_WIDTH;
+		originY = start.getY() - MAP_MAX_HEIGHT;
+	}
+
+	/*
+	 * Grid index of a map square, or -1 if it lies outside the grid.
+	 */
+	public int index(int x, int y) {
+		int gx = x - originX;
+		int gy = y - originY;
+		if (gx < 0 || gy < 0 || gx >= WIDTH || gy >= HEIGHT)
+			return -1;
+		return gy * WIDTH + gx;
+	}
+
+	public int index(MapLocation loc) {
+		return index(loc.getX(), loc.getY());
+	}
+
+	public int mapX(int index) {
+		return originX + index % WIDTH;
+	}
+
+	public int mapY(int index) {
+		return originY + index / WIDTH;
+	}
+
+	public boolean isKnown(int index) {
+		return index >= 0 && (known[index >>> 5] & (1 << index)) != 0;
+	}
+
+	/*
+	 * Whether a ground unit is known to be unable to enter the square.
+	 * Squares outside the grid are always blocked.
+	 */
+	public boolean isBlocked(int index) {
+		return index < 0 || (blocked[index >>> 5] & (1 << index)) != 0;
+	}
+
+	public boolean isBlocked(MapLocation loc) {
+		return isBlocked(index(loc));
+	}
+
+	/*
+	 * Records what a square looks like. Returns true if this changed what we
+	 * knew about it.
+	 */
+	public boolean record(int index, boolean isBlocked) {
+		if (index < 0)
+			return false;
+		int word = index >>> 5;
+		int bit = 1 << index;
+		boolean wasBlocked = (blocked[word] & bit) != 0;
+		if ((known[word] & bit) != 0 && wasBlocked == isBlocked)
+			return false;
+
+		known[word] |= bit;
+		if (isBlocked)
+			blocked[word] |= bit;
+		else
+			blocked[word] &= ~bit;
+		queue(word);
+		return true;
+	}
+
+	private void queue(int word) {
+		int bit = 1 << word;
+		if ((queued[word >>> 5] & bit) != 0)
+			return;
+		queued[word >>> 5] |= bit;
+		int at = changedHead + changedCount++;
+		changed[at < WORDS ? at : at - WORDS] = word;
+	}
+
+	/*
+	 * Number of ints export() will write with the given word limit.
+	 */
+	public int exportLength(int maxWords) {
+		return 1 + maxWords * WORD_INTS;
+	}
+
+	/*
+	 * Writes our grid's origin, then up to maxWords words: the ones queued
+	 * first, and known words sent before to fill up the rest. Words left
+	 * unused are written as index -1. Returns the offset just past them.
+	 */
+	public int export(int[] ints, int offset, int maxWords) {
+		ints[offset++] = Geometry.pack(originX, originY);
+		int words = 0;
+		for (; words < maxWords && changedCount > 0; words++) {
+			int word = changed[changedHead];
+			changedHead = changedHead + 1 < WORDS ? changedHead + 1 : 0;
+			changedCount--;
+			queued[word >>> 5] &= ~(1 << word);
+			ints[offset++] = word;
+			ints[offset++] = known[word];
+			ints[offset++] = blocked[word];
+		}
+
+		// look at one word per free slot, so a sweep of the map takes
+		// WORDS / maxWords rounds at most
+		for (int look = maxWords - words; look > 0; look--) {
+			int word = resendCursor;
+			resendCursor = word + 1 < WORDS ? word + 1 : 0;
+			if (known[word] == 0)
+				continue;
+			ints[offset++] = word;
+			ints[offset++] = known[word];
+			ints[offset++] = blocked[word];
+			words++;
+		}
+
+		for (; words < maxWords; words++) {
+			ints[offset++] = -1;
+			ints[offset++] = 0;
+			ints[offset++] = 0;
+		}
+		return offset;
+	}
+
+	/*
+	 * Takes in the words in ints[offset, end) written by a teammate's
+	 * export(). Only squares we do not know yet are filled in; terrain never
+	 * changes, so what we sensed ourselves is as good as what we are told.
+	 *
+	 * The teammate's grid has the same shape as ours but another origin, so
+	 * its square i is our square i + shift, and each of its words straddles
+	 * two of ours. Squares pushed past the end of a row this way wrap into
+	 * the next row; they are always more than a map's width from where
+	 * either of us started, so they land on squares off the map for us too,
+	 * which are blocked anyway.
+	 */
+	public void merge(int[] ints, int offset, int end) {
+		if (offset >= end)
+			return;
+		int origin = ints[offset++];
+		int shift = (Geometry.unpackY(origin) - originY) * WIDTH
+				+ Geometry.unpackX(origin) - originX;
+		int bits = shift & 31;
+
+		for (; offset + WORD_INTS <= end; offset += WORD_INTS) {
+			int word = ints[offset];
+			if (word < 0)
+				continue;
+			// our square for bit 0 of the word
+			int first = (word << 5) + shift;
+			if (first <= -32 || first >= SIZE)
+				continue;
+			int to = first >> 5;
+			int theirKnown = ints[offset + 1];
+			int theirBlocked = ints[offset + 2];
+			if (to >= 0)
+				mergeWord(to, theirKnown << bits, theirBlocked << bits);
+			if (bits != 0 && to + 1 < WORDS)
+				mergeWord(to + 1, theirKnown >>> (32 - bits),
+						theirBlocked >>> (32 - bits));
+		}
+	}
+
+	private void mergeWord(int word, int theirKnown, int theirBlocked) {
+		int learned = theirKnown & ~known[word];
+		if (learned == 0)
+			return;
+		known[word] |= learned;
+		blocked[word] |= theirBlocked & learned;
+		queue(word);
+	}
+
+	/*
+	 * Senses the unknown squares within radius of the given location until
+	 * the round's bytecode count passes the limit. The scan picks up where
+	 * it left off next round, and starts over once the robot has moved.
+	 * senseTerrainTile only answers for squares the robot has already seen,
+	 * so anything it returns null for is left unknown.
+	 */
+	public void senseAround(MapLocation center, int radius, int bytecodeLimit) {
+		int cx = center.getX();
+		int cy = center.getY();
+		if (cx != scanX || cy != scanY) {
+			scanX = cx;
+			scanY = cy;
+			scanCursor = 0;
+		}
+
+		int side = 2 * radius + 1;
+		int total = side * side;
+		int radiusSq = radius * radius;
+		while (scanCursor < total) {
+			if (Clock.getBytecodeNum() > bytecodeLimit)
+				return;
+
+			int dx = scanCursor % side - radius;
+			int dy = scanCursor / side - radius;
+			scanCursor++;
+			if (dx * dx + dy * dy > radiusSq)
+				continue;
+
+			int index = index(cx + dx, cy + dy);
+			if (index < 0 || isKnown(index))
+				continue;
+
+			TerrainTile tile = rc.senseTerrainTile(new MapLocation(cx + dx, cy
+					+ dy));
+			if (tile != null)
+				record(index, !tile.isTraversableAtHeight(RobotLevel.ON_GROUND));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package bench;
+
+/*
+ * Stands in for battlecode.common.Clock in benchmarked classes. The
+ * CountingClassLoader points every Clock call at this class and charges the
+ * bytecodes the engine would into it.
+ */
+public class BenchClock {
+	// every bytecode charged since the benchmark started
+	public static long bytecodes = 0;
+
+	private static long roundStart = 0;
+	private static int round = 1;
+
+	public static void charge(int count) {
+		bytecodes += count;
+	}
+
+	public static int getBytecodeNum() {
+		return (int) (bytecodes - roundStart);
+	}
+
+	public static int getRoundNum() {
+		return round;
+	}
+
+	/*
+	 * Starts a new round, so per-round caches are refilled and
+	 * getBytecodeNum() counts from zero again.
+	 */
+	public static void nextRound() {
+		round++;
+		startTurn();
+	}
+
+	/*
+	 * Starts the next robot's turn within the same round.
+	 */
+	public static void startTurn() {
+		roundStart = bytecodes;
+	}
+}
@@ -0,0 +1,366 @@
+package bench;
+
+import java.io.File;
+import java.lang.reflect.*;
+import java.util.*;
+
+import battlecode.common.*;
+
+/*
+ * Times team000's hot helpers against a StubController and reports, per
+ * call, the wall time and the bytecodes the engine would charge for it.
+ *
+ * The team is loaded through a CountingClassLoader, so wall times are for
+ * the counted code, as they would be inside the engine. Each call gets an
+ * untimed setup step, which is also where a new round is started so the
+ * per-round sensing caches do not hide the cost of sensing.
+ *
+ * Usage: Benchmarks [-classes dir] [-idata file] [-team name]
+ *                   [-iterations n]
+ */
+public class Benchmarks {
+	private final static int WARMUP = 2000;
+
+	private final CountingClassLoader loader;
+	private final String team;
+	private final int iterations;
+
+	public Benchmarks(CountingClassLoader loader, String team, int iterations) {
+		this.loader = loader;
+		this.team = team;
+		this.iterations = iterations;
+	}
+
+	/*
+	 * One thing to measure. setup() is neither timed nor counted.
+	 */
+	private abstract static class Benchmark {
+		final String name;
+
+		Benchmark(String name) {
+			this.name = name;
+		}
+
+		void setup(int op) throws Exception {
+		}
+
+		abstract void run(int op) throws Exception;
+	}
+
+	private void measure(Benchmark b) throws Exception {
+		for (int i = 0; i < WARMUP; i++) {
+			b.setup(i);
+			b.run(i);
+		}
+
+		long nanos = 0;
+		long bytecodes = 0;
+		for (int i = 0; i < iterations; i++) {
+			b.setup(i);
+			long startBytecodes = BenchClock.bytecodes;
+			long start = System.nanoTime();
+			b.run(i);
+			nanos += System.nanoTime() - start;
+			bytecodes += BenchClock.bytecodes - startBytecodes;
+		}
+		System.out.println(String.format("%-34s %12.1f %14.1f", b.name,
+				(double) nanos / iterations, (double) bytecodes / iterations));
+	}
+
+	/***************************************************************************
+	 * Access to the counted classes
+	 **************************************************************************/
+
+	private Object newPlayer(StubController stub) throws Exception {
+		Class<?> c = loader.loadClass(team + ".RobotPlayer");
+		return c.getConstructor(RobotController.class).newInstance(
+				stub.controller());
+	}
+
+	private Object newRadio(StubController stub) throws Exception {
+		Class<?> c = loader.loadClass(team + ".Radio");
+		return c.getConstructor(RobotController.class).newInstance(
+				stub.controller());
+	}
+
+	private static Method method(Object o, String name, Class<?>... params)
+			throws Exception {
+		Method m = o.getClass().getDeclaredMethod(name, params);
+		m.setAccessible(true);
+		return m;
+	}
+
+	private static Field field(Object o, String name) throws Exception {
+		Field f = o.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		return f;
+	}
+
+	private int radioConstant(String name) throws Exception {
+		return loader.loadClass(team + ".Radio").getField(name).getInt(null);
+	}
+
+	/***************************************************************************
+	 * The benchmarks
+	 **************************************************************************/
+
+	private final static MapLocation HOME = new MapLocation(100, 100);
+
+	/*
+	 * Fills the stub with robots on distinct squares within a few moves of
+	 * HOME, mostly allies of every ground type.
+	 */
+	private static void crowd(StubController stub, int count, Random random) {
+		RobotType[] types = { RobotType.ARCHON, RobotType.SOLDIER,
+				RobotType.MORTAR, RobotType.SNIPER };
+		Set<MapLocation> used = new HashSet<MapLocation>();
+		used.add(HOME);
+		for (int id = 1; id <= count; id++) {
+			MapLocation loc;
+			do {
+				loc = new MapLocation(HOME.getX() + random.nextInt(13) - 6, HOME
+						.getY()
+						+ random.nextInt(13) - 6);
+			} while (!used.add(loc));
+			Team robotTeam = random.nextInt(10) < 7 ? stub.team : stub.team
+					.opponent();
+			stub.addGroundRobot(id, robotTeam, types[random.nextInt(types.length)],
+					loc);
+		}
+	}
+
+	private void calcDirection() throws Exception {
+		StubController stub = new StubController(1000, Team.A,
+				RobotType.ARCHON, HOME);
+		final Object player = newPlayer(stub);
+		final Method calc = method(player, "calcDirection", MapLocation.class);
+		final MapLocation[] targets = new MapLocation[64];
+		Random random = new Random(1);
+		for (int i = 0; i < targets.length; i++)
+			targets[i] = new MapLocation(HOME.getX() + random.nextInt(41) - 20,
+					HOME.getY() + random.nextInt(41) - 20);
+
+		measure(new Benchmark("calcDirection") {
+			void run(int op) throws Exception {
+				calc.invoke(player, targets[op & 63]);
+			}
+		});
+	}
+
+	private void countSquad(int crowdSize) throws Exception {
+		StubController stub = new StubController(1000, Team.A,
+				RobotType.ARCHON, HOME);
+		crowd(stub, crowdSize, new Random(crowdSize));
+		final Object player = newPlayer(stub);
+		final Method count = method(player, "countSquad");
+
+		measure(new Benchmark("countSquad/crowd=" + crowdSize) {
+			void setup(int op) {
+				BenchClock.nextRound();
+			}
+
+			void run(int op) throws Exception {
+				count.invoke(player);
+			}
+		});
+	}
+
+	/*
+	 * Choosing a spawn direction with some of the neighbours taken, after
+	 * the round's sensing has been done.
+	 */
+	private void spawnDirection(int blocked) throws Exception {
+		StubController stub = new StubController(1000, Team.A,
+				RobotType.ARCHON, HOME);
+		// the stub archon faces north, so take the squares in front first
+		Direction[] order = { Direction.NORTH, Direction.SOUTH, Direction.EAST,
+				Direction.WEST, Direction.NORTH_EAST, Direction.NORTH_WEST,
+				Direction.SOUTH_EAST, Direction.SOUTH_WEST };
+		for (int i = 0; i < blocked; i++)
+			stub.addGroundRobot(i + 1, Team.A, RobotType.SOLDIER, HOME
+					.add(order[i]));
+		final Object player = newPlayer(stub);
+		final Object snapshot = field(player, "snapshot").get(player);
+		final Method sense = method(snapshot, "senseGround");
+		final Object spawner = field(player, "spawner").get(player);
+		final Method choose = method(spawner, "choose", MapLocation.class);
+		final MapLocation target = HOME.add(Direction.SOUTH_EAST).add(
+				Direction.SOUTH_EAST);
+
+		measure(new Benchmark("spawnDirection/blocked=" + blocked) {
+			void setup(int op) throws Exception {
+				BenchClock.nextRound();
+				sense.invoke(snapshot);
+			}
+
+			void run(int op) throws Exception {
+				choose.invoke(spawner, target);
+			}
+		});
+	}
+
+	/*
+	 * Receiving a round's messages and picking out the leader's orders, with
+	 * the leader's message last in the queue.
+	 */
+	private void findLeaderOrders(final int messageCount) throws Exception {
+		final int leaderId = 1;
+		StubController stub = new StubController(1000, Team.A,
+				RobotType.SOLDIER, HOME);
+		final Object player = newPlayer(stub);
+		field(player, "following").setInt(player, leaderId);
+		final Object radio = field(player, "radio").get(player);
+		final Method receive = method(radio, "receive", Message[].class);
+		final Method find = method(player, "findLeaderOrders");
+
+		final int orders = radioConstant("ORDERS");
+		final int knowledge = radioConstant("KNOWLEDGE");
+		final StubController[] senders = new StubController[messageCount];
+		final Object[] senderRadios = new Object[messageCount];
+		for (int i = 0; i < messageCount; i++) {
+			// the leader is the last one to send
+			senders[i] = new StubController(messageCount - i, Team.A,
+					RobotType.ARCHON, HOME);
+			senderRadios[i] = newRadio(senders[i]);
+		}
+		final Method startRecord = method(senderRadios[0], "startRecord",
+				Integer.TYPE);
+		final Method put = method(senderRadios[0], "put", Integer.TYPE);
+		final Method flush = method(senderRadios[0], "flush");
+
+		measure(new Benchmark("findLeaderOrders/messages=" + messageCount) {
+			Message[] current;
+
+			void setup(int op) throws Exception {
+				BenchClock.nextRound();
+				Message[] inbox = new Message[messageCount];
+				for (int i = 0; i < messageCount; i++) {
+					Object r = senderRadios[i];
+					startRecord.invoke(r, orders);
+					for (int k = 0; k < 6; k++)
+						put.invoke(r, k == 0 ? senders[i].self.getID() : k);
+					startRecord.invoke(r, knowledge);
+					for (int k = 0; k < 12; k++)
+						put.invoke(r, k);
+					senders[i].sent.clear();
+					flush.invoke(r);
+					inbox[i] = senders[i].sent.get(0);
+				}
+				field(player, "leaderOrders").setInt(player, -1);
+				current = inbox;
+			}
+
+			void run(int op) throws Exception {
+				receive.invoke(radio, (Object) current);
+				find.invoke(player);
+			}
+		});
+	}
+
+	/*
+	 * The same round of messages for a troop in a formation instead: every
+	 * archon sends a FORMATION record with a squad of members, and the
+	 * troop, last in its leader's list, works out its slot.
+	 */
+	private void readFormation(final int messageCount, final int members)
+			throws Exception {
+		final int leaderId = 1;
+		final StubController stub = new StubController(1000, Team.A,
+				RobotType.SOLDIER, HOME);
+		final Object player = newPlayer(stub);
+		field(player, "following").setInt(player, leaderId);
+		final Object radio = field(player, "radio").get(player);
+		final Method receive = method(radio, "receive", Message[].class);
+		final Method read = method(player, "readFormation");
+
+		final int formation = radioConstant("FORMATION");
+		final int noLocation = radioConstant("NO_LOCATION");
+		final StubController[] senders = new StubController[messageCount];
+		final Object[] senderRadios = new Object[messageCount];
+		for (int i = 0; i < messageCount; i++) {
+			// the leader is the last one to send
+			senders[i] = new StubController(messageCount - i, Team.A,
+					RobotType.ARCHON, HOME);
+			senderRadios[i] = newRadio(senders[i]);
+		}
+		final Method startRecord = method(senderRadios[0], "startRecord",
+				Integer.TYPE);
+		final Method put = method(senderRadios[0], "put", Integer.TYPE);
+		final Method flush = method(senderRadios[0], "flush");
+
+		measure(new Benchmark("readFormation/messages=" + messageCount
+				+ ",members=" + members) {
+			Message[] current;
+
+			void setup(int op) throws Exception {
+				BenchClock.nextRound();
+				Message[] inbox = new Message[messageCount];
+				for (int i = 0; i < messageCount; i++) {
+					Object r = senderRadios[i];
+					startRecord.invoke(r, formation);
+					put.invoke(r, 2); // attack
+					put.invoke(r, HOME.getX() << 16 | HOME.getY());
+					put.invoke(r, noLocation);
+					put.invoke(r, Direction.EAST.ordinal());
+					for (int k = 0; k < members; k++) {
+						int id = i == messageCount - 1 && k == members - 1 ? stub.self
+								.getID()
+								: 2000 + 100 * i + k;
+						put.invoke(r, id << 4 | k);
+					}
+					senders[i].sent.clear();
+					flush.invoke(r);
+					inbox[i] = senders[i].sent.get(0);
+				}
+				current = inbox;
+			}
+
+			void run(int op) throws Exception {
+				receive.invoke(radio, (Object) current);
+				read.invoke(player);
+			}
+		});
+	}
+
+	public void runAll() throws Exception {
+		System.out.println(String.format("%-34s %12s %14s", "benchmark",
+				"ns/call", "bytecodes/call"));
+		calcDirection();
+		countSquad(8);
+		countSquad(32);
+		countSquad(64);
+		spawnDirection(0);
+		spawnDirection(4);
+		spawnDirection(8);
+		findLeaderOrders(4);
+		findLeaderOrders(16);
+		readFormation(4, 8);
+		readFormation(16, 8);
+	}
+
+	public static void main(String[] args) {
+		File classes = new File("build" + File.separator + "bench");
+		File idata = new File("idata");
+		String team = "team000";
+		int iterations = 20000;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-classes"))
+				classes = new File(args[i + 1]);
+			else if (args[i].equals("-idata"))
+				idata = new File(args[i + 1]);
+			else if (args[i].equals("-team"))
+				team = args[i + 1];
+			else if (args[i].equals("-iterations"))
+				iterations = Integer.parseInt(args[i + 1]);
+		}
+
+		try {
+			CountingClassLoader loader = new CountingClassLoader(classes, team,
+					CountingClassLoader.readMethodCosts(idata));
+			new Benchmarks(loader, team, iterations).runAll();
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}
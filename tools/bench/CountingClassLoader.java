@@ -0,0 +1,278 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.objectweb.asm.*;
+
+/*
+ * Loads a team's classes with a bytecode counter woven in, charging what
+ * battlecode.engine.instrumenter would: one per instruction, plus the cost
+ * idata lists for each library or RobotController method called. Counts are
+ * flushed into BenchClock at the end of every basic block, and calls to
+ * battlecode.common.Clock are sent to BenchClock instead.
+ *
+ * In profiling mode the charges go to Profiler instead, together with a
+ * call on entry to and normal exit from every method and one at the start of
+ * every exception handler, so the cost can be split up by call stack.
+ *
+ * Team classes are read from their own directory rather than the classpath,
+ * so the copies in bin/ never shadow the counted ones. They have to be class
+ * files ASM 2 can read (compiled for Java 7 or older); they are rewritten as
+ * Java 5 class files, which do not need stack map frames.
+ */
+public class CountingClassLoader extends ClassLoader {
+	private final static String CLOCK = "battlecode/common/Clock";
+	private final static String BENCH_CLOCK = "bench/BenchClock";
+	private final static String PROFILER = "bench/Profiler";
+
+	private final File classDir;
+	private final String packagePrefix;
+	private final Map<String, Integer> methodCosts;
+	private final boolean profile;
+
+	public CountingClassLoader(File classDir, String teamPackage,
+			Map<String, Integer> methodCosts) {
+		this(classDir, teamPackage, methodCosts, false);
+	}
+
+	public CountingClassLoader(File classDir, String teamPackage,
+			Map<String, Integer> methodCosts, boolean profile) {
+		super(CountingClassLoader.class.getClassLoader());
+		this.classDir = classDir;
+		this.packagePrefix = teamPackage + ".";
+		this.methodCosts = methodCosts;
+		this.profile = profile;
+	}
+
+	/*
+	 * Reads the method costs out of the engine's idata file, keyed by
+	 * "owner/name" the way the engine keys them.
+	 */
+	public static Map<String, Integer> readMethodCosts(File idata)
+			throws IOException {
+		Map<String, Integer> costs = new HashMap<String, Integer>();
+		ZipFile zip = new ZipFile(idata);
+		try {
+			ZipEntry entry = zip.getEntry("MethodCosts.txt");
+			BufferedReader in = new BufferedReader(new InputStreamReader(zip
+					.getInputStream(entry)));
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.trim().split("\\s+");
+				if (fields.length >= 2)
+					costs.put(fields[0], Integer.valueOf(fields[1]));
+			}
+		} finally {
+			zip.close();
+		}
+		return costs;
+	}
+
+	protected synchronized Class<?> loadClass(String name, boolean resolve)
+			throws ClassNotFoundException {
+		if (!name.startsWith(packagePrefix))
+			return super.loadClass(name, resolve);
+
+		Class<?> c = findLoadedClass(name);
+		if (c == null) {
+			byte[] bytes = instrument(readClass(name));
+			c = defineClass(name, bytes, 0, bytes.length);
+		}
+		if (resolve)
+			resolveClass(c);
+		return c;
+	}
+
+	private byte[] readClass(String name) throws ClassNotFoundException {
+		File file = new File(classDir, name.replace('.', File.separatorChar)
+				+ ".class");
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buf = new byte[4096];
+				int n;
+				while ((n = in.read(buf)) != -1)
+					bytes.write(buf, 0, n);
+				return bytes.toByteArray();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+
+	private byte[] instrument(byte[] bytes) {
+		ClassReader reader = new ClassReader(bytes);
+		ClassWriter writer = new ClassWriter(true);
+		reader.accept(new ClassAdapter(writer) {
+			private String className;
+
+			public void visit(int version, int access, String name,
+					String signature, String superName, String[] interfaces) {
+				className = name.substring(name.lastIndexOf('/') + 1);
+				super.visit(Opcodes.V1_5, access, name, signature, superName,
+						interfaces);
+			}
+
+			public void visitAttribute(Attribute attr) {
+				// nothing we need
+			}
+
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				MethodVisitor mv = super.visitMethod(access, name, desc,
+						signature, exceptions);
+				if (mv == null)
+					return null;
+				int method = profile ? Profiler.methodId(className + "."
+						+ name) : -1;
+				return new CountingMethodAdapter(mv, method);
+			}
+		}, false);
+		return writer.toByteArray();
+	}
+
+	/*
+	 * Adds up the cost of each basic block and charges it just before the
+	 * instruction that ends the block, or before the label the block falls
+	 * through to.
+	 */
+	private class CountingMethodAdapter extends MethodAdapter implements
+			Opcodes {
+		// Profiler method id, or -1 when not profiling
+		private final int method;
+		private final Set<Label> handlers = new HashSet<Label>();
+		private int pending = 0;
+
+		CountingMethodAdapter(MethodVisitor mv, int method) {
+			super(mv);
+			this.method = method;
+		}
+
+		private void push(int value) {
+			if (value <= Short.MAX_VALUE)
+				super.visitIntInsn(SIPUSH, value);
+			else
+				super.visitLdcInsn(Integer.valueOf(value));
+		}
+
+		private void flush() {
+			if (pending == 0)
+				return;
+			push(pending);
+			super.visitMethodInsn(INVOKESTATIC, method == -1 ? BENCH_CLOCK
+					: PROFILER, "charge", "(I)V");
+			pending = 0;
+		}
+
+		public void visitAttribute(Attribute attr) {
+			// stack map frames would no longer match the code
+		}
+
+		public void visitCode() {
+			super.visitCode();
+			if (method != -1) {
+				push(method);
+				super.visitMethodInsn(INVOKESTATIC, PROFILER, "enter", "(I)V");
+			}
+		}
+
+		public void visitTryCatchBlock(Label start, Label end, Label handler,
+				String type) {
+			handlers.add(handler);
+			super.visitTryCatchBlock(start, end, handler, type);
+		}
+
+		public void visitLabel(Label label) {
+			flush();
+			super.visitLabel(label);
+			if (method != -1 && handlers.contains(label)) {
+				// whatever threw may have been several calls deeper
+				push(method);
+				super.visitMethodInsn(INVOKESTATIC, PROFILER, "unwind", "(I)V");
+			}
+		}
+
+		public void visitInsn(int opcode) {
+			pending++;
+			boolean returns = opcode >= IRETURN && opcode <= RETURN;
+			if (returns || opcode == ATHROW)
+				flush();
+			if (returns && method != -1)
+				super.visitMethodInsn(INVOKESTATIC, PROFILER, "exit", "()V");
+			super.visitInsn(opcode);
+		}
+
+		public void visitIntInsn(int opcode, int operand) {
+			pending++;
+			super.visitIntInsn(opcode, operand);
+		}
+
+		public void visitVarInsn(int opcode, int var) {
+			pending++;
+			super.visitVarInsn(opcode, var);
+		}
+
+		public void visitTypeInsn(int opcode, String desc) {
+			pending++;
+			super.visitTypeInsn(opcode, desc);
+		}
+
+		public void visitFieldInsn(int opcode, String owner, String name,
+				String desc) {
+			pending++;
+			super.visitFieldInsn(opcode, owner, name, desc);
+		}
+
+		public void visitMethodInsn(int opcode, String owner, String name,
+				String desc) {
+			pending++;
+			Integer cost = methodCosts.get(owner + "/" + name);
+			if (cost != null)
+				pending += cost.intValue();
+			flush();
+			if (owner.equals(CLOCK))
+				owner = BENCH_CLOCK;
+			super.visitMethodInsn(opcode, owner, name, desc);
+		}
+
+		public void visitJumpInsn(int opcode, Label label) {
+			pending++;
+			flush();
+			super.visitJumpInsn(opcode, label);
+		}
+
+		public void visitLdcInsn(Object cst) {
+			pending++;
+			super.visitLdcInsn(cst);
+		}
+
+		public void visitIincInsn(int var, int increment) {
+			pending++;
+			super.visitIincInsn(var, increment);
+		}
+
+		public void visitTableSwitchInsn(int min, int max, Label dflt,
+				Label[] labels) {
+			pending++;
+			flush();
+			super.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		public void visitLookupSwitchInsn(Label dflt, int[] keys,
+				Label[] labels) {
+			pending++;
+			flush();
+			super.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+		public void visitMultiANewArrayInsn(String desc, int dims) {
+			pending++;
+			super.visitMultiANewArrayInsn(desc, dims);
+		}
+	}
+}
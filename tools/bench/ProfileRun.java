@@ -0,0 +1,149 @@
+package bench;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+import battlecode.common.*;
+
+/*
+ * Plays a small squad through a number of rounds against StubControllers,
+ * with team000 loaded in profiling mode, and writes where the bytecodes went
+ * as collapsed stacks.
+ *
+ * The squad is two archons and a soldier next to each other with a few
+ * enemies around. Every robot runs its turns through its own TaskScheduler,
+ * exactly as RobotPlayer.run() would; what one robot broadcasts is in the
+ * others' message queue the next round. Robots never actually move, so
+ * the profile is of deciding what to do, not of walking the map.
+ *
+ * Usage: ProfileRun [-classes dir] [-idata file] [-team name] [-rounds n]
+ *                   [-out file]
+ */
+public class ProfileRun {
+	private final static MapLocation HOME = new MapLocation(100, 100);
+
+	private final CountingClassLoader loader;
+	private final String team;
+	private final int rounds;
+
+	private final List<StubController> stubs = new ArrayList<StubController>();
+	private final List<Object> schedulers = new ArrayList<Object>();
+	private final List<String> labels = new ArrayList<String>();
+
+	public ProfileRun(CountingClassLoader loader, String team, int rounds) {
+		this.loader = loader;
+		this.team = team;
+		this.rounds = rounds;
+	}
+
+	private void addRobot(int id, RobotType type, MapLocation loc) {
+		stubs.add(new StubController(id, Team.A, type, loc));
+		labels.add(type + "-" + id);
+	}
+
+	/*
+	 * Puts every robot, and the enemies, into every other robot's view and
+	 * creates the players.
+	 */
+	private void setup() throws Exception {
+		addRobot(1, RobotType.ARCHON, HOME);
+		addRobot(2, RobotType.ARCHON, HOME.add(Direction.EAST));
+		addRobot(3, RobotType.SOLDIER, HOME.add(Direction.SOUTH_WEST));
+
+		for (StubController stub : stubs) {
+			for (StubController other : stubs) {
+				if (other != stub)
+					stub.addGroundRobot(other.self.getID(), other.team,
+							other.type, other.location);
+			}
+			stub.addGroundRobot(101, Team.B, RobotType.SOLDIER, HOME.add(
+					Direction.NORTH).add(Direction.NORTH).add(Direction.NORTH));
+			stub.addGroundRobot(102, Team.B, RobotType.ARCHON, HOME.add(
+					Direction.NORTH_EAST).add(Direction.NORTH_EAST).add(
+					Direction.NORTH_EAST));
+		}
+
+		Class<?> playerClass = loader.loadClass(team + ".RobotPlayer");
+		Method registerTasks = playerClass.getDeclaredMethod("registerTasks");
+		registerTasks.setAccessible(true);
+		Field scheduler = playerClass.getDeclaredField("scheduler");
+		scheduler.setAccessible(true);
+		for (int i = 0; i < stubs.size(); i++) {
+			Profiler.begin(labels.get(i));
+			Object player = playerClass.getConstructor(RobotController.class)
+					.newInstance(stubs.get(i).controller());
+			registerTasks.invoke(player);
+			schedulers.add(scheduler.get(player));
+		}
+	}
+
+	public void run() throws Exception {
+		setup();
+		Method runRound = schedulers.get(0).getClass().getMethod("runRound");
+
+		List<Message> lastRound = new ArrayList<Message>();
+		for (int round = 0; round < rounds; round++) {
+			BenchClock.nextRound();
+			List<Message> thisRound = new ArrayList<Message>();
+			for (int i = 0; i < stubs.size(); i++) {
+				StubController stub = stubs.get(i);
+				stub.inbox = lastRound.toArray(new Message[lastRound.size()]);
+				stub.sent.clear();
+
+				BenchClock.startTurn();
+				Profiler.begin(labels.get(i));
+				runRound.invoke(schedulers.get(i));
+				thisRound.addAll(stub.sent);
+			}
+			lastRound = thisRound;
+		}
+	}
+
+	public static void main(String[] args) {
+		File classes = new File("build" + File.separator + "bench");
+		File idata = new File("idata");
+		File out = new File("build" + File.separator + "profile.folded");
+		String team = "team000";
+		int rounds = 500;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-classes"))
+				classes = new File(args[i + 1]);
+			else if (args[i].equals("-idata"))
+				idata = new File(args[i + 1]);
+			else if (args[i].equals("-team"))
+				team = args[i + 1];
+			else if (args[i].equals("-rounds"))
+				rounds = Integer.parseInt(args[i + 1]);
+			else if (args[i].equals("-out"))
+				out = new File(args[i + 1]);
+		}
+
+		try {
+			CountingClassLoader loader = new CountingClassLoader(classes, team,
+					CountingClassLoader.readMethodCosts(idata), true);
+			new ProfileRun(loader, team, rounds).run();
+
+			out.getAbsoluteFile().getParentFile().mkdirs();
+			PrintWriter writer = new PrintWriter(new FileWriter(out));
+			try {
+				Profiler.writeCollapsed(writer);
+			} finally {
+				writer.close();
+			}
+
+			System.out.println(String.format("%-40s %14s", "method",
+					"bytecodes/round"));
+			List<Map.Entry<String, Long>> totals = Profiler.totals();
+			for (int i = 0; i < totals.size() && i < 20; i++) {
+				Map.Entry<String, Long> e = totals.get(i);
+				System.out.println(String.format("%-40s %14.1f", e.getKey(),
+						(double) e.getValue().longValue() / rounds));
+			}
+			System.out.println("Collapsed stacks written to " + out);
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}
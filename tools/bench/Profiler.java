@@ -0,0 +1,152 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+
+/*
+ * Splits the bytecodes charged by classes loaded in profiling mode up by
+ * call stack. The stacks are kept as a tree of call nodes; every charge goes
+ * to the node of the method running at the time.
+ *
+ * Methods are known by ids handed out at instrumentation time. A method that
+ * exits by throwing is not popped until a handler further up calls unwind(),
+ * or the next begin() starts a fresh stack.
+ */
+public class Profiler {
+	private final static List<String> methodNames = new ArrayList<String>();
+	private final static Map<String, Integer> methodIds = new HashMap<String, Integer>();
+
+	private final static class Node {
+		final Node parent;
+		final String name;
+		final int method;
+		final Map<Integer, Node> children = new LinkedHashMap<Integer, Node>();
+		long self = 0;
+
+		Node(Node parent, String name, int method) {
+			this.parent = parent;
+			this.name = name;
+			this.method = method;
+		}
+
+		Node child(int method) {
+			Integer key = Integer.valueOf(method);
+			Node child = children.get(key);
+			if (child == null) {
+				child = new Node(this, methodNames.get(method), method);
+				children.put(key, child);
+			}
+			return child;
+		}
+	}
+
+	private final static Map<String, Node> roots = new LinkedHashMap<String, Node>();
+	private static Node current = null;
+
+	public static synchronized int methodId(String name) {
+		Integer id = methodIds.get(name);
+		if (id == null) {
+			id = Integer.valueOf(methodNames.size());
+			methodNames.add(name);
+			methodIds.put(name, id);
+		}
+		return id.intValue();
+	}
+
+	/*
+	 * Starts a new stack under the given label, e.g. one robot's turn.
+	 */
+	public static void begin(String label) {
+		Node root = roots.get(label);
+		if (root == null) {
+			root = new Node(null, label, -1);
+			roots.put(label, root);
+		}
+		current = root;
+	}
+
+	public static void enter(int method) {
+		if (current != null)
+			current = current.child(method);
+	}
+
+	public static void exit() {
+		if (current != null && current.parent != null)
+			current = current.parent;
+	}
+
+	/*
+	 * Pops back to the innermost call of the given method, after an exception
+	 * has been caught in it.
+	 */
+	public static void unwind(int method) {
+		for (Node n = current; n != null; n = n.parent) {
+			if (n.method == method) {
+				current = n;
+				return;
+			}
+		}
+	}
+
+	public static void charge(int count) {
+		BenchClock.charge(count);
+		if (current != null)
+			current.self += count;
+	}
+
+	/*
+	 * Writes one line per stack, its frames separated by semicolons and
+	 * followed by the bytecodes charged to it, as flamegraph.pl and similar
+	 * tools expect.
+	 */
+	public static void writeCollapsed(PrintWriter out) {
+		for (Node root : roots.values())
+			writeCollapsed(out, root, root.name);
+	}
+
+	private static void writeCollapsed(PrintWriter out, Node node, String stack) {
+		if (node.self > 0)
+			out.println(stack + " " + node.self);
+		for (Node child : node.children.values())
+			writeCollapsed(out, child, stack + ";" + child.name);
+	}
+
+	/*
+	 * Total bytecodes per method including what it called, counting
+	 * recursive calls once, largest first.
+	 */
+	public static List<Map.Entry<String, Long>> totals() {
+		Map<String, Long> totals = new HashMap<String, Long>();
+		for (Node root : roots.values())
+			addTotals(root, totals, new HashSet<String>());
+		List<Map.Entry<String, Long>> list = new ArrayList<Map.Entry<String, Long>>(
+				totals.entrySet());
+		Collections.sort(list, new Comparator<Map.Entry<String, Long>>() {
+			public int compare(Map.Entry<String, Long> a,
+					Map.Entry<String, Long> b) {
+				return b.getValue().compareTo(a.getValue());
+			}
+		});
+		return list;
+	}
+
+	/*
+	 * Adds node's subtree to the totals of every method on the way down, but
+	 * only once for recursive calls. Returns the subtree's cost.
+	 */
+	private static long addTotals(Node node, Map<String, Long> totals,
+			Set<String> onStack) {
+		long total = node.self;
+		// roots are labels, not methods
+		boolean added = node.parent != null && onStack.add(node.name);
+		for (Node child : node.children.values())
+			total += addTotals(child, totals, onStack);
+		if (added) {
+			onStack.remove(node.name);
+			Long sum = totals.get(node.name);
+			totals.put(node.name, Long.valueOf(total
+					+ (sum == null ? 0 : sum.longValue())));
+		}
+		return total;
+	}
+}
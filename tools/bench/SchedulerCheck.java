@@ -0,0 +1,136 @@
+package bench;
+
+import java.io.File;
+import java.lang.reflect.*;
+
+/*
+ * Runs team000's TaskScheduler round after round with stand-in tasks that
+ * charge their estimated cost, at the priorities and costs RobotPlayer
+ * registers them with, beside a background task that never finishes and
+ * always uses up the rest of the round. Every other task has to run every
+ * round regardless.
+ *
+ * The scheduler is loaded through a CountingClassLoader, so its own
+ * bytecodes count against the round as they would in the engine.
+ *
+ * Usage: SchedulerCheck [-classes dir] [-idata file] [-team name]
+ *                       [-rounds n]
+ * Exits with status 1 if a round misses a task.
+ */
+public class SchedulerCheck {
+	private final static String[] TASKS = { "SENSE", "RECEIVE", "ROLE", "SEND",
+			"BACKGROUND" };
+	private final static int BACKGROUND = 4;
+
+	/*
+	 * A stand-in task. Logs its name when it runs, then either charges its
+	 * cost and finishes, or runs until the limit and asks to go on.
+	 */
+	private static class StandIn implements InvocationHandler {
+		final String name;
+		final int cost;
+		final boolean finishes;
+		final StringBuilder log;
+
+		StandIn(String name, int cost, boolean finishes, StringBuilder log) {
+			this.name = name;
+			this.cost = cost;
+			this.finishes = finishes;
+			this.log = log;
+		}
+
+		public Object invoke(Object proxy, Method m, Object[] args) {
+			if (m.getName().equals("equals"))
+				return Boolean.valueOf(proxy == args[0]);
+			if (m.getName().equals("hashCode"))
+				return Integer.valueOf(System.identityHashCode(proxy));
+			if (m.getName().equals("toString"))
+				return name;
+
+			log.append(log.length() == 0 ? "" : " ").append(name);
+			if (finishes) {
+				BenchClock.charge(cost);
+				return Boolean.TRUE;
+			}
+			int left = ((Integer) args[0]).intValue()
+					- BenchClock.getBytecodeNum();
+			BenchClock.charge(left > 0 ? left : 0);
+			return Boolean.FALSE;
+		}
+	}
+
+	public static boolean check(CountingClassLoader loader, String team,
+			int rounds) throws Exception {
+		Class<?> player = loader.loadClass(team + ".RobotPlayer");
+		Class<?> taskClass = loader.loadClass(team + ".Task");
+		Class<?> schedulerClass = loader.loadClass(team + ".TaskScheduler");
+		Object scheduler = schedulerClass.getConstructor().newInstance();
+		Method add = schedulerClass.getMethod("add", taskClass, Integer.TYPE,
+				Integer.TYPE);
+		Method runRound = schedulerClass.getMethod("runRound");
+
+		StringBuilder log = new StringBuilder();
+		for (int t = 0; t < TASKS.length; t++) {
+			int priority = constant(player, TASKS[t] + "_PRIORITY");
+			int cost = constant(player, TASKS[t] + "_COST");
+			Object task = Proxy.newProxyInstance(loader,
+					new Class<?>[] { taskClass }, new StandIn(TASKS[t]
+							.toLowerCase(), cost, t != BACKGROUND, log));
+			add.invoke(scheduler, task, priority, cost);
+		}
+
+		boolean passed = true;
+		for (int round = 1; round <= rounds; round++) {
+			BenchClock.nextRound();
+			log.setLength(0);
+			runRound.invoke(scheduler);
+			String ran = " " + log + " ";
+			for (int t = 0; t < TASKS.length; t++) {
+				if (t == BACKGROUND)
+					continue;
+				if (ran.indexOf(" " + TASKS[t].toLowerCase() + " ") == -1) {
+					System.out.println("round " + round + ": " + TASKS[t]
+							+ " did not run (ran: " + log + ")");
+					passed = false;
+				}
+			}
+		}
+		System.out.println((passed ? "passed" : "FAILED") + ", " + rounds
+				+ " rounds, last round ran: " + log);
+		return passed;
+	}
+
+	private static int constant(Class<?> c, String name) throws Exception {
+		Field f = c.getDeclaredField(name);
+		f.setAccessible(true);
+		return f.getInt(null);
+	}
+
+	public static void main(String[] args) {
+		File classes = new File("build" + File.separator + "bench");
+		File idata = new File("idata");
+		String team = "team000";
+		int rounds = 100;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-classes"))
+				classes = new File(args[i + 1]);
+			else if (args[i].equals("-idata"))
+				idata = new File(args[i + 1]);
+			else if (args[i].equals("-team"))
+				team = args[i + 1];
+			else if (args[i].equals("-rounds"))
+				rounds = Integer.parseInt(args[i + 1]);
+		}
+
+		try {
+			CountingClassLoader loader = new CountingClassLoader(classes, team,
+					CountingClassLoader.readMethodCosts(idata));
+			if (!check(loader, team, rounds))
+				System.exit(1);
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package bench;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import battlecode.common.*;
+
+/*
+ * A RobotController that answers from a made up crowd of robots and message
+ * queue instead of a game world. Anything the benchmarks do not set up gets a
+ * harmless default: false, zero, null or an empty array.
+ */
+public class StubController implements InvocationHandler {
+	private final static TerrainTile LAND = TerrainTile.createTerrainTile(0,
+			TerrainTile.TerrainType.LAND);
+
+	/*
+	 * The robots handed out by the stub.
+	 */
+	public static class StubRobot implements Robot {
+		private final int id;
+		private final RobotLevel level;
+
+		public StubRobot(int id, RobotLevel level) {
+			this.id = id;
+			this.level = level;
+		}
+
+		public int getID() {
+			return id;
+		}
+
+		public RobotLevel getRobotLevel() {
+			return level;
+		}
+
+		public int hashCode() {
+			return id;
+		}
+
+		public boolean equals(Object o) {
+			return o instanceof StubRobot && ((StubRobot) o).id == id;
+		}
+	}
+
+	public final Robot self;
+	public final Team team;
+	public final RobotType type;
+	public MapLocation location;
+	public Message[] inbox = new Message[0];
+	public final List<Message> sent = new ArrayList<Message>();
+
+	private final List<Robot> ground = new ArrayList<Robot>();
+	private final Map<Integer, RobotInfo> infos = new HashMap<Integer, RobotInfo>();
+	private final Map<MapLocation, Robot> groundAt = new HashMap<MapLocation, Robot>();
+
+	public StubController(int id, Team team, RobotType type,
+			MapLocation location) {
+		this.self = new StubRobot(id, type.isAirborne() ? RobotLevel.IN_AIR
+				: RobotLevel.ON_GROUND);
+		this.team = team;
+		this.type = type;
+		this.location = location;
+	}
+
+	public RobotController controller() {
+		return (RobotController) Proxy.newProxyInstance(
+				RobotController.class.getClassLoader(),
+				new Class<?>[] { RobotController.class }, this);
+	}
+
+	/*
+	 * Puts a ground robot with half of its energon on the given square.
+	 */
+	public Robot addGroundRobot(int id, Team robotTeam, RobotType robotType,
+			MapLocation loc) {
+		Robot robot = new StubRobot(id, RobotLevel.ON_GROUND);
+		double max = robotType.maxEnergon();
+		infos.put(Integer.valueOf(id), new RobotInfo(robotType, robotTeam, loc,
+				max / 2, 0, max, 0, 0, Direction.NORTH));
+		ground.add(robot);
+		groundAt.put(loc, robot);
+		return robot;
+	}
+
+	public void clearRobots() {
+		ground.clear();
+		infos.clear();
+		groundAt.clear();
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+		if (name.equals("getLocation"))
+			return location;
+		if (name.equals("getTeam"))
+			return team;
+		if (name.equals("getRobotType"))
+			return type;
+		if (name.equals("getRobot"))
+			return self;
+		if (name.equals("getDirection"))
+			return Direction.NORTH;
+		if (name.equals("senseNearbyGroundRobots"))
+			return ground.toArray(new Robot[ground.size()]);
+		if (name.equals("senseRobotInfo"))
+			return infos.get(Integer.valueOf(((Robot) args[0]).getID()));
+		if (name.equals("senseGroundRobotAtLocation"))
+			return groundAt.get(args[0]);
+		if (name.equals("canMove"))
+			return Boolean.valueOf(!groundAt.containsKey(location
+					.add((Direction) args[0])));
+		if (name.equals("canSenseSquare"))
+			return Boolean.TRUE;
+		if (name.equals("senseTerrainTile"))
+			return LAND;
+		if (name.equals("getAllMessages"))
+			return inbox;
+		if (name.equals("broadcast")) {
+			sent.add((Message) args[0]);
+			return null;
+		}
+		if (name.equals("hashCode"))
+			return Integer.valueOf(System.identityHashCode(proxy));
+		if (name.equals("equals"))
+			return Boolean.valueOf(proxy == args[0]);
+		if (name.equals("toString"))
+			return "StubController(" + self.getID() + ")";
+		return defaultValue(method.getReturnType());
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == Boolean.TYPE)
+			return Boolean.FALSE;
+		if (type == Integer.TYPE)
+			return Integer.valueOf(0);
+		if (type == Double.TYPE)
+			return Double.valueOf(0);
+		if (type == Long.TYPE)
+			return Long.valueOf(0);
+		if (type.isArray())
+			return Array.newInstance(type.getComponentType(), 0);
+		return null;
+	}
+}
@@ -0,0 +1,251 @@
+package replay;
+
+import java.io.*;
+import java.util.*;
+
+import battlecode.serial.MatchHeader;
+import battlecode.serial.RoundDelta;
+
+/*
+ * Fingerprints the world state of every round of a recorded match, so that
+ * two runs which should have played out the same, for instance before and
+ * after a change made for speed, can be checked against each other.
+ *
+ * Every round's RoundDelta is applied to a UnitState and the state is
+ * hashed: for every robot in id order its id, team, type, square and
+ * energon. Tower ownership is covered by the towers' teams. Each round's
+ * hash also folds in the one before it, so equal hashes at a round mean
+ * equal histories up to it.
+ *
+ * A hash file has one line per round, "match round hash". Comparing reports
+ * the first round whose hashes differ; when both sides are match files the
+ * robots that differ at that round are listed too.
+ *
+ * Usage: MatchHash file.rms            writes file.rms.hash
+ *        MatchHash -compare a b        a and b are match or hash files
+ */
+public class MatchHash {
+	private final static long SEED = 0xcbf29ce484222325L;
+	private final static long PRIME = 0x100000001b3L;
+	private final static int MAX_LISTED = 10;
+
+	private final static Comparator<UnitState.Unit> BY_ID = new Comparator<UnitState.Unit>() {
+		public int compare(UnitState.Unit a, UnitState.Unit b) {
+			return a.id < b.id ? -1 : (a.id == b.id ? 0 : 1);
+		}
+	};
+
+	/*
+	 * Replays a match file round by round. next() moves to the next round,
+	 * of the same match or the start of the next one, and returns false at
+	 * the end of the file.
+	 */
+	private static class Replay {
+		private final MatchStream in;
+		private UnitState state = null;
+		int match = -1;
+		int round = -1;
+		long hash;
+
+		Replay(File f) throws IOException {
+			in = new MatchStream(f);
+		}
+
+		boolean next() throws IOException {
+			Object o;
+			while ((o = in.readObject()) != null) {
+				if (o instanceof MatchHeader) {
+					state = UnitState.FACTORY.createState((MatchHeader) o);
+					match++;
+					round = -1;
+					hash = SEED;
+				} else if (o instanceof RoundDelta && state != null) {
+					state.apply((RoundDelta) o);
+					round++;
+					hash = mix(hash, stateHash(state));
+					return true;
+				}
+			}
+			return false;
+		}
+
+		List<UnitState.Unit> units() {
+			List<UnitState.Unit> units = new ArrayList<UnitState.Unit>(state
+					.getUnits());
+			Collections.sort(units, BY_ID);
+			return units;
+		}
+
+		void close() throws IOException {
+			in.close();
+		}
+	}
+
+	private static long mix(long hash, long value) {
+		for (int i = 0; i < 8; i++) {
+			hash ^= (value >>> (i * 8)) & 0xff;
+			hash *= PRIME;
+		}
+		return hash;
+	}
+
+	public static long stateHash(UnitState state) {
+		UnitState.Unit[] units = state.getUnits().toArray(
+				new UnitState.Unit[0]);
+		Arrays.sort(units, BY_ID);
+		long hash = SEED;
+		for (UnitState.Unit u : units) {
+			hash = mix(hash, u.id);
+			hash = mix(hash, u.team == null ? -1 : u.team.ordinal());
+			hash = mix(hash, u.type == null ? -1 : u.type.ordinal());
+			if (u.location != null)
+				hash = mix(hash, ((long) u.location.getX() << 32)
+						| (u.location.getY() & 0xffffffffL));
+			hash = mix(hash, Double.doubleToLongBits(u.energon));
+		}
+		return hash;
+	}
+
+	/*
+	 * Writes the hash file for a match file.
+	 */
+	public static int write(File match, File out) throws IOException {
+		Replay replay = new Replay(match);
+		PrintWriter writer = new PrintWriter(new BufferedWriter(
+				new FileWriter(out)));
+		int rounds = 0;
+		try {
+			while (replay.next()) {
+				writer.println(replay.match + " " + replay.round + " "
+						+ Long.toHexString(replay.hash));
+				rounds++;
+			}
+		} finally {
+			writer.close();
+			replay.close();
+		}
+		return rounds;
+	}
+
+	private static boolean isHashFile(File f) {
+		return f.getName().endsWith(".hash");
+	}
+
+	/*
+	 * Hash file lines, or one line at a time replayed from a match file.
+	 */
+	private static class Lines {
+		private final BufferedReader hashes;
+		private final Replay replay;
+
+		Lines(File f) throws IOException {
+			if (isHashFile(f)) {
+				hashes = new BufferedReader(new FileReader(f));
+				replay = null;
+			} else {
+				hashes = null;
+				replay = new Replay(f);
+			}
+		}
+
+		String next() throws IOException {
+			if (hashes != null)
+				return hashes.readLine();
+			if (!replay.next())
+				return null;
+			return replay.match + " " + replay.round + " "
+					+ Long.toHexString(replay.hash);
+		}
+
+		void close() throws IOException {
+			if (hashes != null)
+				hashes.close();
+			else
+				replay.close();
+		}
+	}
+
+	/*
+	 * Prints the first round at which two runs differ. Returns true if they
+	 * are the same all the way through.
+	 */
+	public static boolean compare(File a, File b) throws IOException {
+		Lines left = new Lines(a);
+		Lines right = new Lines(b);
+		try {
+			int rounds = 0;
+			while (true) {
+				String l = left.next();
+				String r = right.next();
+				if (l == null && r == null) {
+					System.out.println("identical, " + rounds + " rounds");
+					return true;
+				}
+				if (l == null || r == null) {
+					System.out.println((l == null ? a : b) + " ends after "
+							+ rounds + " rounds, the other goes on");
+					return false;
+				}
+				if (!l.equals(r)) {
+					String[] at = l.split(" ");
+					System.out.println("first difference at match " + at[0]
+							+ " round " + at[1] + ": " + l + " vs " + r);
+					if (left.replay != null && right.replay != null)
+						listDifferences(left.replay, right.replay);
+					return false;
+				}
+				rounds++;
+			}
+		} finally {
+			left.close();
+			right.close();
+		}
+	}
+
+	private static void listDifferences(Replay a, Replay b) {
+		Map<Integer, UnitState.Unit> theirs = new HashMap<Integer, UnitState.Unit>();
+		for (UnitState.Unit u : b.units())
+			theirs.put(Integer.valueOf(u.id), u);
+
+		int listed = 0;
+		for (UnitState.Unit u : a.units()) {
+			UnitState.Unit other = theirs.remove(Integer.valueOf(u.id));
+			if (other == null || !describe(u).equals(describe(other))) {
+				if (listed++ < MAX_LISTED)
+					System.out.println("  " + describe(u) + " vs "
+							+ (other == null ? "missing" : describe(other)));
+			}
+		}
+		for (UnitState.Unit u : theirs.values()) {
+			if (listed++ < MAX_LISTED)
+				System.out.println("  missing vs " + describe(u));
+		}
+		if (listed > MAX_LISTED)
+			System.out.println("  and " + (listed - MAX_LISTED) + " more");
+	}
+
+	private static String describe(UnitState.Unit u) {
+		return "#" + u.id + " " + u.team + " " + u.type + " at " + u.location
+				+ " energon " + u.energon;
+	}
+
+	public static void main(String[] args) {
+		try {
+			if (args.length == 3 && args[0].equals("-compare")) {
+				if (!compare(new File(args[1]), new File(args[2])))
+					System.exit(1);
+			} else if (args.length == 1) {
+				File match = new File(args[0]);
+				File out = new File(match.getPath() + ".hash");
+				int rounds = write(match, out);
+				System.out.println(rounds + " rounds hashed to " + out);
+			} else {
+				System.out.println("Usage: MatchHash file.rms");
+				System.out.println("       MatchHash -compare a b");
+			}
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package replay;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * Reads the objects of a match file one at a time, whether it was saved by
+ * FileProxy (a gzipped object stream) or packed by PackMatch, so tools can
+ * stream through recordings without caring which they were given.
+ */
+public class MatchStream {
+	private final ObjectInputStream objects;
+	private final PackedMatchReader packed;
+
+	public MatchStream(File f) throws IOException {
+		if (PackedMatchReader.isPacked(f)) {
+			packed = new PackedMatchReader(f);
+			objects = null;
+		} else {
+			packed = null;
+			objects = new ObjectInputStream(new GZIPInputStream(
+					new BufferedInputStream(new FileInputStream(f))));
+		}
+	}
+
+	/*
+	 * The next object in the file, or null at the end of it.
+	 */
+	public Object readObject() throws IOException {
+		if (packed != null)
+			return packed.readObject();
+		try {
+			return objects.readObject();
+		} catch (EOFException e) {
+			return null;
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.toString());
+		}
+	}
+
+	public void close() throws IOException {
+		if (packed != null)
+			packed.close();
+		else
+			objects.close();
+	}
+}
@@ -0,0 +1,553 @@
+package replay;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.serial.ExtensibleMetadata;
+import battlecode.serial.MatchFooter;
+import battlecode.serial.MatchHeader;
+import battlecode.serial.RoundDelta;
+import battlecode.world.signal.*;
+
+/*
+ * Mines recorded matches for how each team plays, and prints what it finds
+ * as Java constants a player can paste in.
+ *
+ * Match files, saved by FileProxy or packed, are read one object at a time
+ * through MatchStream and replayed into a UnitState, so memory stays flat
+ * however long the matches are and however many files there are.
+ * Directories are searched for .rms and .rmz files. Files are read on a pool
+ * of -workers threads, one per processor by default, each file into profiles
+ * of its own that are added up as they come in.
+ *
+ * Per team, over every match it played:
+ *   - matches and wins
+ *   - the mean round it first made each unit type, and rounds per spawn
+ *   - its unit mix: each type's share of the units it made, an evolution
+ *     counting as a unit of the new type instead of the old
+ *   - the mean round of its first, second, ... tower capture, and the mean
+ *     distance of that tower from where its archons started
+ *   - the median squared distance its units of each type attack from
+ *
+ * Matches over within MIN_ROUNDS rounds are left out; those are ones where
+ * a team failed to start.
+ *
+ * Teams go by the names in the match metadata. -skip leaves one out,
+ * usually our own. Progress lines are printed as comments, so everything
+ * written is valid Java.
+ *
+ * Usage: OpponentStats [-skip name] [-out file] [-workers n] file|dir ...
+ */
+public class OpponentStats {
+	private final static RobotType[] TYPES = RobotType.values();
+	private final static int MAX_CAPTURES = 4;
+	// attacks from further away are counted as this far
+	private final static int MAX_DIST_SQ = 64;
+	// matches over this soon are ones where a team failed to start, which
+	// the batch runner keeps the files of
+	private final static int MIN_ROUNDS = 10;
+
+	/*
+	 * Everything gathered about one team.
+	 */
+	private static class Profile {
+		final String name;
+		int matches, wins, rounds, spawns;
+		final int[] made = new int[TYPES.length];
+		final long[] firstSpawnSum = new long[TYPES.length];
+		final int[] firstSpawnMatches = new int[TYPES.length];
+		final long[] captureRoundSum = new long[MAX_CAPTURES];
+		final double[] captureDistanceSum = new double[MAX_CAPTURES];
+		final int[] captures = new int[MAX_CAPTURES];
+		// captures whose distance was known
+		final int[] captureDistances = new int[MAX_CAPTURES];
+		// per attacker type, attacks by squared distance
+		final int[][] attacks = new int[TYPES.length][MAX_DIST_SQ + 1];
+
+		Profile(String name) {
+			this.name = name;
+		}
+
+		void add(Profile other) {
+			matches += other.matches;
+			wins += other.wins;
+			rounds += other.rounds;
+			spawns += other.spawns;
+			for (int t = 0; t < TYPES.length; t++) {
+				made[t] += other.made[t];
+				firstSpawnSum[t] += other.firstSpawnSum[t];
+				firstSpawnMatches[t] += other.firstSpawnMatches[t];
+				for (int d = 0; d <= MAX_DIST_SQ; d++)
+					attacks[t][d] += other.attacks[t][d];
+			}
+			for (int k = 0; k < MAX_CAPTURES; k++) {
+				captureRoundSum[k] += other.captureRoundSum[k];
+				captureDistanceSum[k] += other.captureDistanceSum[k];
+				captures[k] += other.captures[k];
+				captureDistances[k] += other.captureDistances[k];
+			}
+		}
+	}
+
+	/*
+	 * The profiles from one file, with how long it took to read.
+	 */
+	private static class FileResult {
+		final File file;
+		final OpponentStats stats = new OpponentStats();
+		int rounds;
+		long millis;
+
+		FileResult(File file) {
+			this.file = file;
+		}
+	}
+
+	/*
+	 * One team's side of the match being read, added to its profile once the
+	 * match turns out to count.
+	 */
+	private static class Side {
+		final Profile profile;
+		int spawns = 0;
+		final int[] made = new int[TYPES.length];
+		final int[] firstSpawn = new int[TYPES.length];
+		final int[][] attacks = new int[TYPES.length][MAX_DIST_SQ + 1];
+		int captures = 0;
+		final int[] captureRound = new int[MAX_CAPTURES];
+		// -1 where the tower or the archons' start was not known
+		final double[] captureDistance = new double[MAX_CAPTURES];
+		int archons = 0;
+		long archonX = 0, archonY = 0;
+
+		Side(Profile profile) {
+			this.profile = profile;
+			Arrays.fill(firstSpawn, -1);
+		}
+	}
+
+	private final Map<String, Profile> profiles =
+			new TreeMap<String, Profile>();
+
+	// the match being read
+	private UnitState state = null;
+	private String nameA, nameB;
+	private Side sideA, sideB;
+
+	private Profile profile(String name) {
+		Profile p = profiles.get(name);
+		if (p == null) {
+			p = new Profile(name);
+			profiles.put(name, p);
+		}
+		return p;
+	}
+
+	/*
+	 * Reads one match file. Returns the number of rounds in it.
+	 */
+	public int read(File f) throws IOException {
+		MatchStream in = new MatchStream(f);
+		int rounds = 0;
+		try {
+			Object o;
+			while ((o = in.readObject()) != null) {
+				if (o instanceof MatchHeader) {
+					endMatch(null);
+					state = UnitState.FACTORY.createState((MatchHeader) o);
+					nameA = f.getName() + ":A";
+					nameB = f.getName() + ":B";
+				} else if (o instanceof ExtensibleMetadata) {
+					ExtensibleMetadata meta = (ExtensibleMetadata) o;
+					Object a = meta.get("team-a", null);
+					Object b = meta.get("team-b", null);
+					if (a != null && b != null) {
+						nameA = a.toString();
+						nameB = b.toString();
+					}
+				} else if (o instanceof RoundDelta && state != null) {
+					if (sideA == null) {
+						sideA = new Side(profile(nameA));
+						sideB = new Side(profile(nameB));
+					}
+					round((RoundDelta) o);
+					rounds++;
+				} else if (o instanceof MatchFooter)
+					endMatch(((MatchFooter) o).getWinner());
+			}
+			endMatch(null);
+		} finally {
+			in.close();
+		}
+		return rounds;
+	}
+
+	/*
+	 * Adds the profiles of another OpponentStats, e.g. one that read other
+	 * files on another thread.
+	 */
+	public void add(OpponentStats other) {
+		for (Profile p : other.profiles.values())
+			profile(p.name).add(p);
+	}
+
+	private Side side(Team team) {
+		if (team == Team.A)
+			return sideA;
+		if (team == Team.B)
+			return sideB;
+		return null;
+	}
+
+	/*
+	 * Takes the signals of a round in, then applies them to the state. The
+	 * state is still that of the round before, which is close enough for
+	 * where an attacker stood.
+	 */
+	private void round(RoundDelta delta) {
+		int round = state.getRound();
+		for (Signal s : delta.getSignals()) {
+			if (s instanceof SpawnSignal)
+				spawned((SpawnSignal) s, round);
+			else if (s instanceof EvolutionSignal)
+				evolved((EvolutionSignal) s);
+			else if (s instanceof AttackSignal)
+				attacked((AttackSignal) s);
+			else if (s instanceof TowerRespawnSignal)
+				captured((TowerRespawnSignal) s, round);
+		}
+		state.apply(delta);
+	}
+
+	/*
+	 * What a team starts with is placed in round 0; anything spawned after
+	 * that the team made, apart from towers changing hands.
+	 */
+	private void spawned(SpawnSignal s, int round) {
+		Side side = side(s.getTeam());
+		if (side == null || s.getType() == RobotType.TOWER)
+			return;
+		int type = s.getType().ordinal();
+		if (round == 0) {
+			if (s.getType() == RobotType.ARCHON) {
+				side.archons++;
+				side.archonX += s.getLoc().getX();
+				side.archonY += s.getLoc().getY();
+			}
+			return;
+		}
+		side.made[type]++;
+		side.spawns++;
+		if (side.firstSpawn[type] == -1)
+			side.firstSpawn[type] = round;
+	}
+
+	private void evolved(EvolutionSignal s) {
+		UnitState.Unit u = state.getUnit(s.getRobotID());
+		Side side = u == null ? null : side(u.team);
+		if (side == null)
+			return;
+		int[] made = side.made;
+		if (made[u.type.ordinal()] > 0)
+			made[u.type.ordinal()]--;
+		made[s.getType().ordinal()]++;
+	}
+
+	private void attacked(AttackSignal s) {
+		UnitState.Unit u = state.getUnit(s.getRobotID());
+		Side side = u == null ? null : side(u.team);
+		if (side == null || u.location == null)
+			return;
+		int distSq = u.location.distanceSquaredTo(s.getTargetLoc());
+		int[] attacks = side.attacks[u.type.ordinal()];
+		attacks[Math.min(distSq, MAX_DIST_SQ)]++;
+	}
+
+	private void captured(TowerRespawnSignal s, int round) {
+		Side side = side(s.getRespawnTeam());
+		UnitState.Unit tower = state.getUnit(s.getTowerID());
+		if (side == null || side.captures >= MAX_CAPTURES)
+			return;
+		int k = side.captures++;
+		side.captureRound[k] = round;
+		side.captureDistance[k] = -1;
+		if (tower != null && tower.location != null && side.archons > 0) {
+			MapLocation loc = tower.location;
+			double dx = loc.getX() - (double) side.archonX / side.archons;
+			double dy = loc.getY() - (double) side.archonY / side.archons;
+			side.captureDistance[k] = Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+
+	/*
+	 * Adds the match being read to both teams' profiles, if it lasted more
+	 * than MIN_ROUNDS rounds.
+	 */
+	private void endMatch(Team winner) {
+		if (sideA != null && state.getRound() > MIN_ROUNDS) {
+			int rounds = state.getRound();
+			finish(sideA, rounds, winner == Team.A);
+			finish(sideB, rounds, winner == Team.B);
+		}
+		state = null;
+		sideA = null;
+		sideB = null;
+	}
+
+	private static void finish(Side side, int rounds, boolean won) {
+		Profile p = side.profile;
+		p.matches++;
+		p.rounds += rounds;
+		if (won)
+			p.wins++;
+		p.spawns += side.spawns;
+		for (int t = 0; t < TYPES.length; t++) {
+			p.made[t] += side.made[t];
+			if (side.firstSpawn[t] != -1) {
+				p.firstSpawnSum[t] += side.firstSpawn[t];
+				p.firstSpawnMatches[t]++;
+			}
+			for (int d = 0; d <= MAX_DIST_SQ; d++)
+				p.attacks[t][d] += side.attacks[t][d];
+		}
+		for (int k = 0; k < side.captures; k++) {
+			p.captureRoundSum[k] += side.captureRound[k];
+			p.captures[k]++;
+			if (side.captureDistance[k] >= 0) {
+				p.captureDistanceSum[k] += side.captureDistance[k];
+				p.captureDistances[k]++;
+			}
+		}
+	}
+
+	/***************************************************************************
+	 * Output
+	 **************************************************************************/
+
+	private static int mean(double sum, int count) {
+		return count == 0 ? -1 : (int) Math.round(sum / count);
+	}
+
+	private static int median(int[] histogram) {
+		int total = 0;
+		for (int n : histogram)
+			total += n;
+		if (total == 0)
+			return -1;
+		int seen = 0;
+		for (int d = 0; d < histogram.length; d++) {
+			seen += histogram[d];
+			if (2 * seen >= total)
+				return d;
+		}
+		return histogram.length - 1;
+	}
+
+	private static String row(int[] values) {
+		StringBuilder sb = new StringBuilder("{ ");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(values[i]);
+		}
+		return sb.append(" }").toString();
+	}
+
+	private static void table(PrintWriter out, String comment, String name,
+			List<Profile> rows, int[][] values) {
+		out.println("\t// " + comment);
+		out.println("\tpublic final static int[][] " + name + " = {");
+		for (int i = 0; i < rows.size(); i++)
+			out.println("\t\t\t" + row(values[i])
+					+ (i < rows.size() - 1 ? "," : "") + " // "
+					+ rows.get(i).name);
+		out.println("\t};");
+	}
+
+	private static void list(PrintWriter out, String comment, String name,
+			int[] values) {
+		out.println("\t// " + comment);
+		out.println("\tpublic final static int[] " + name + " = "
+				+ row(values) + ";");
+	}
+
+	/*
+	 * Prints the profiles of every team but skip as constants, one table
+	 * per statistic and one row per team, in the order of OPPONENTS.
+	 */
+	public void print(PrintWriter out, String skip) {
+		List<Profile> rows = new ArrayList<Profile>();
+		for (Profile p : profiles.values()) {
+			if (p.matches > 0 && !p.name.equals(skip))
+				rows.add(p);
+		}
+		int n = rows.size();
+
+		StringBuilder names = new StringBuilder("{ ");
+		StringBuilder typeNames = new StringBuilder();
+		for (int i = 0; i < n; i++)
+			names.append(i > 0 ? ", \"" : "\"").append(rows.get(i).name)
+					.append('"');
+		for (int t = 0; t < TYPES.length; t++)
+			typeNames.append(t > 0 ? ", " : "").append(TYPES[t]);
+
+		int[] matches = new int[n];
+		int[] winPercent = new int[n];
+		int[] roundsPerSpawn = new int[n];
+		int[][] firstSpawn = new int[n][TYPES.length];
+		int[][] mix = new int[n][TYPES.length];
+		int[][] captureRound = new int[n][MAX_CAPTURES];
+		int[][] captureDistance = new int[n][MAX_CAPTURES];
+		int[][] attackDistSq = new int[n][TYPES.length];
+		for (int i = 0; i < n; i++) {
+			Profile p = rows.get(i);
+			matches[i] = p.matches;
+			winPercent[i] = p.matches == 0 ? -1 : 100 * p.wins / p.matches;
+			roundsPerSpawn[i] = p.spawns == 0 ? -1 : p.rounds / p.spawns;
+			int made = 0;
+			for (int t = 0; t < TYPES.length; t++)
+				made += p.made[t];
+			for (int t = 0; t < TYPES.length; t++) {
+				firstSpawn[i][t] = mean(p.firstSpawnSum[t],
+						p.firstSpawnMatches[t]);
+				mix[i][t] = made == 0 ? 0 : 100 * p.made[t] / made;
+				attackDistSq[i][t] = median(p.attacks[t]);
+			}
+			for (int k = 0; k < MAX_CAPTURES; k++) {
+				captureRound[i][k] = mean(p.captureRoundSum[k], p.captures[k]);
+				captureDistance[i][k] = mean(p.captureDistanceSum[k],
+						p.captureDistances[k]);
+			}
+		}
+
+		out.println("\t// generated by replay.OpponentStats, -1 where there"
+				+ " is no data");
+		out.println("\tpublic final static String[] OPPONENTS = " + names
+				+ " };");
+		list(out, "matches played", "MATCHES", matches);
+		list(out, "share of them won", "WIN_PERCENT", winPercent);
+		list(out, "rounds per unit spawned", "ROUNDS_PER_SPAWN",
+				roundsPerSpawn);
+		out.println("\t// by RobotType ordinal: " + typeNames);
+		table(out, "mean round of the first spawn", "FIRST_SPAWN_ROUND",
+				rows, firstSpawn);
+		table(out, "share of the units made", "UNIT_MIX_PERCENT", rows, mix);
+		table(out, "median squared distance attacked from",
+				"ATTACK_DIST_SQ", rows, attackDistSq);
+		out.println("\t// by capture: first, second, ...");
+		table(out, "mean round of the capture", "CAPTURE_ROUND", rows,
+				captureRound);
+		table(out, "mean distance of the tower from the archons' start",
+				"CAPTURE_DISTANCE", rows, captureDistance);
+		out.flush();
+	}
+
+	/*
+	 * Adds the match files in a directory and the ones below it.
+	 */
+	private static void collect(File dir, List<File> files) {
+		File[] children = dir.listFiles();
+		if (children == null)
+			return;
+		Arrays.sort(children);
+		for (File child : children) {
+			if (child.isDirectory())
+				collect(child, files);
+			else if (child.getName().endsWith(".rms")
+					|| child.getName().endsWith(".rmz"))
+				files.add(child);
+		}
+	}
+
+	public static void main(String[] args) {
+		String skip = null;
+		File outFile = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-skip") && i + 1 < args.length)
+				skip = args[++i];
+			else if (args[i].equals("-out") && i + 1 < args.length)
+				outFile = new File(args[++i]);
+			else if (args[i].equals("-workers") && i + 1 < args.length)
+				workers = Math.max(1, Integer.parseInt(args[++i]));
+			else if (new File(args[i]).isDirectory())
+				collect(new File(args[i]), files);
+			else
+				files.add(new File(args[i]));
+		}
+		if (files.isEmpty()) {
+			System.out.println("Usage: OpponentStats [-skip name] [-out file]"
+					+ " [-workers n] file|dir ...");
+			return;
+		}
+
+		try {
+			OpponentStats stats = new OpponentStats();
+			long start = System.currentTimeMillis();
+			ExecutorService pool = Executors.newFixedThreadPool(workers);
+			List<Future<FileResult>> results =
+					new ArrayList<Future<FileResult>>();
+			for (final File f : files) {
+				results.add(pool.submit(new Callable<FileResult>() {
+					public FileResult call() throws Exception {
+						FileResult result = new FileResult(f);
+						long fileStart = System.currentTimeMillis();
+						result.rounds = result.stats.read(f);
+						result.millis = System.currentTimeMillis() - fileStart;
+						return result;
+					}
+				}));
+			}
+			pool.shutdown();
+
+			long bytes = 0;
+			int rounds = 0;
+			int read = 0;
+			for (int i = 0; i < results.size(); i++) {
+				FileResult result;
+				try {
+					result = results.get(i).get();
+				} catch (ExecutionException e) {
+					System.out.println("Caught Exception:");
+					e.getCause().printStackTrace();
+					continue;
+				} finally {
+					// let the file's profiles go once they are added up
+					results.set(i, null);
+				}
+				stats.add(result.stats);
+				System.out.println("// " + result.file + ": " + result.rounds
+						+ " rounds, " + result.file.length() / 1024 + " KB in "
+						+ result.millis + " ms");
+				bytes += result.file.length();
+				rounds += result.rounds;
+				read++;
+			}
+			long millis = Math.max(1, System.currentTimeMillis() - start);
+			System.out.println("// " + read + " files on " + workers
+					+ " workers, " + rounds + " rounds, " + bytes / 1024
+					+ " KB in " + millis + " ms (" + bytes * 1000 / 1024
+					/ millis + " KB/s)");
+
+			PrintWriter out;
+			if (outFile == null)
+				out = new PrintWriter(new OutputStreamWriter(System.out));
+			else
+				out = new PrintWriter(new BufferedWriter(new FileWriter(
+						outFile)));
+			stats.print(out, skip);
+			if (outFile != null) {
+				out.close();
+				System.out.println("// written to " + outFile);
+			}
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package replay;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * Converts a match file saved by FileProxy (bc.server.save-file) into the
+ * packed format, streaming it one object at a time.
+ *
+ * Usage: PackMatch in.rms [out.rmz]
+ */
+public class PackMatch {
+	public static void pack(File in, File out) throws IOException {
+		ObjectInputStream objects = new ObjectInputStream(new GZIPInputStream(
+				new BufferedInputStream(new FileInputStream(in))));
+		PackedMatchWriter writer = new PackedMatchWriter(out);
+		writer.open();
+		try {
+			while (true)
+				writer.writeObject(objects.readObject());
+		} catch (EOFException e) {
+			// end of the match file
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.toString());
+		} finally {
+			objects.close();
+			writer.close();
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: PackMatch in.rms [out.rmz]");
+			return;
+		}
+		File in = new File(args[0]);
+		File out;
+		if (args.length > 1)
+			out = new File(args[1]);
+		else {
+			String name = in.getPath();
+			if (name.endsWith(".rms"))
+				name = name.substring(0, name.length() - 4);
+			out = new File(name + ".rmz");
+		}
+
+		try {
+			long start = System.currentTimeMillis();
+			pack(in, out);
+			PackedMatchReader reader = new PackedMatchReader(out);
+			int rounds = 0;
+			for (int m = 0; m < reader.getMatchCount(); m++)
+				rounds += reader.getRoundCount(m);
+			reader.close();
+			System.out.println(in + " (" + in.length() + " bytes) -> " + out
+					+ " (" + out.length() + " bytes), "
+					+ reader.getMatchCount() + " matches, " + rounds
+					+ " rounds in " + (System.currentTimeMillis() - start)
+					+ " ms");
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package replay;
+
+import java.io.*;
+import java.util.zip.*;
+
+import battlecode.serial.MatchHeader;
+import battlecode.serial.RoundDelta;
+
+/*
+ * Reads match files written by PackedMatchWriter. Objects come back in the
+ * order they were written; seek() jumps to any round of any match by
+ * decoding only the block that holds it.
+ */
+public class PackedMatchReader {
+	private final RandomAccessFile file;
+
+	// the index, one entry per block
+	private final int[] blockMatch;
+	private final int[] blockFirstRound;
+	private final int[] blockRounds;
+	private final long[] blockOffset;
+
+	// the block being read, and the next one to read after it
+	private ObjectInputStream in = null;
+	private int nextBlock = 0;
+	private Object peeked = null;
+
+	public PackedMatchReader(File packed) throws IOException {
+		file = new RandomAccessFile(packed, "r");
+		if (file.length() < 20 || file.readInt() != PackedMatchWriter.MAGIC)
+			throw new IOException(packed + " is not a packed match file");
+		int version = file.readInt();
+		if (version != PackedMatchWriter.VERSION)
+			throw new IOException(packed + " has unknown version " + version);
+
+		file.seek(file.length() - 12);
+		long indexOffset = file.readLong();
+		if (file.readInt() != PackedMatchWriter.MAGIC)
+			throw new IOException(packed + " is cut short");
+
+		file.seek(indexOffset);
+		int blocks = file.readInt();
+		blockMatch = new int[blocks];
+		blockFirstRound = new int[blocks];
+		blockRounds = new int[blocks];
+		blockOffset = new long[blocks];
+		for (int b = 0; b < blocks; b++) {
+			blockMatch[b] = file.readInt();
+			blockFirstRound[b] = file.readInt();
+			blockRounds[b] = file.readInt();
+			blockOffset[b] = file.readLong();
+		}
+	}
+
+	/*
+	 * Whether a file starts like a packed match file.
+	 */
+	public static boolean isPacked(File f) {
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(f));
+			try {
+				return in.readInt() == PackedMatchWriter.MAGIC;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public int getMatchCount() {
+		int count = 0;
+		for (int b = 0; b < blockMatch.length; b++)
+			count = Math.max(count, blockMatch[b] + 1);
+		return count;
+	}
+
+	public int getRoundCount(int match) {
+		int rounds = 0;
+		for (int b = 0; b < blockMatch.length; b++) {
+			if (blockMatch[b] == match)
+				rounds += blockRounds[b];
+		}
+		return rounds;
+	}
+
+	/*
+	 * The next object in the file, or null at the end of it.
+	 */
+	public Object readObject() throws IOException {
+		if (peeked != null) {
+			Object o = peeked;
+			peeked = null;
+			return o;
+		}
+		while (true) {
+			if (in != null) {
+				try {
+					return in.readObject();
+				} catch (EOFException e) {
+					in.close();
+					in = null;
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e.toString());
+				}
+			}
+			if (nextBlock >= blockOffset.length)
+				return null;
+			openBlock(nextBlock);
+		}
+	}
+
+	/*
+	 * The next object in the file, without moving past it, or null at the
+	 * end of the file.
+	 */
+	public Object peek() throws IOException {
+		if (peeked == null)
+			peeked = readObject();
+		return peeked;
+	}
+
+	/*
+	 * The MatchHeader of a match, or null if it has none. Leaves the reader
+	 * somewhere inside the match's first block.
+	 */
+	public MatchHeader getHeader(int match) throws IOException {
+		int b = 0;
+		while (b < blockMatch.length && blockMatch[b] != match)
+			b++;
+		if (b == blockMatch.length)
+			return null;
+
+		openBlock(b);
+		peeked = null;
+		Object o;
+		while ((o = readObject()) != null && !(o instanceof RoundDelta)) {
+			if (o instanceof MatchHeader)
+				return (MatchHeader) o;
+		}
+		return null;
+	}
+
+	/*
+	 * Moves to a round of a match, so that readObject() returns its
+	 * RoundDelta next and carries on from there.
+	 */
+	public void seek(int match, int round) throws IOException {
+		int b = 0;
+		while (b < blockMatch.length && !holds(b, match, round))
+			b++;
+		if (b == blockMatch.length)
+			throw new IOException("no round " + round + " in match " + match);
+
+		openBlock(b);
+		peeked = null;
+		int skip = round - blockFirstRound[b];
+		while (true) {
+			Object o = readObject();
+			if (o instanceof RoundDelta && skip-- == 0) {
+				peeked = o;
+				return;
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		if (in != null)
+			in.close();
+		file.close();
+	}
+
+	private boolean holds(int b, int match, int round) {
+		return blockMatch[b] == match && round >= blockFirstRound[b]
+				&& round < blockFirstRound[b] + blockRounds[b];
+	}
+
+	private void openBlock(int b) throws IOException {
+		if (in != null)
+			in.close();
+		file.seek(blockOffset[b]);
+		byte[] bytes = new byte[file.readInt()];
+		file.readFully(bytes);
+		in = new ObjectInputStream(new InflaterInputStream(
+				new ByteArrayInputStream(bytes)));
+		nextBlock = b + 1;
+	}
+}
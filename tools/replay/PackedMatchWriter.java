@@ -0,0 +1,127 @@
+package replay;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import battlecode.serial.MatchHeader;
+import battlecode.serial.RoundDelta;
+import battlecode.server.proxy.Proxy;
+
+/*
+ * Writes matches in the packed format read by PackedMatchReader. It is a
+ * Proxy, so it takes the same objects in the same order as FileProxy does,
+ * but it streams them to disk a block at a time instead of as one gzipped
+ * object stream.
+ *
+ * File layout:
+ *   int MAGIC, int VERSION
+ *   blocks, each int compressed length + deflated object stream
+ *   index: int block count, then per block
+ *     int match, int first round, int round count, long file offset
+ *   trailer: long index offset, int MAGIC
+ *
+ * A block holds up to BLOCK_ROUNDS RoundDeltas and whatever else comes
+ * between them (RoundStats, and the headers and footers of matches). Every
+ * block is a separate object stream, so it can be decoded without looking
+ * at any other block; the index makes those blocks the seek points of the
+ * file. Inside a block class descriptors and repeated values are written
+ * once, which together with the deflater is where most of the saving over
+ * a reset-per-object stream comes from.
+ *
+ * Objects must not be changed after they have been written.
+ */
+public class PackedMatchWriter extends Proxy {
+	public final static int MAGIC = 0x4243504b; // "BCPK"
+	public final static int VERSION = 1;
+	public final static int BLOCK_ROUNDS = 100;
+
+	private final RandomAccessFile file;
+
+	// the block being filled
+	private ByteArrayOutputStream blockBytes;
+	private ObjectOutputStream blockOut;
+	private int blockMatch;
+	private int blockFirstRound;
+	private int blockRounds;
+
+	private int match = -1;
+	private int round = 0;
+
+	private final List<long[]> index = new ArrayList<long[]>();
+
+	public PackedMatchWriter(File out) throws IOException {
+		out.delete();
+		file = new RandomAccessFile(out, "rw");
+	}
+
+	protected OutputStream getOutputStream() {
+		return null;
+	}
+
+	public void open() throws IOException {
+		file.writeInt(MAGIC);
+		file.writeInt(VERSION);
+	}
+
+	public void writeObject(Object o) throws IOException {
+		if (o instanceof MatchHeader) {
+			endBlock();
+			match++;
+			round = 0;
+		} else if (o instanceof RoundDelta) {
+			// blocks start with a round, so what comes before a match's
+			// first round gets a block of its own
+			if (blockRounds == BLOCK_ROUNDS || blockRounds == 0)
+				endBlock();
+		}
+
+		if (blockOut == null)
+			startBlock();
+		blockOut.writeObject(o);
+
+		if (o instanceof RoundDelta) {
+			if (blockRounds == 0)
+				blockFirstRound = round;
+			blockRounds++;
+			round++;
+		}
+	}
+
+	public void close() throws IOException {
+		endBlock();
+		long indexOffset = file.getFilePointer();
+		file.writeInt(index.size());
+		for (long[] entry : index) {
+			file.writeInt((int) entry[0]);
+			file.writeInt((int) entry[1]);
+			file.writeInt((int) entry[2]);
+			file.writeLong(entry[3]);
+		}
+		file.writeLong(indexOffset);
+		file.writeInt(MAGIC);
+		file.close();
+	}
+
+	private void startBlock() throws IOException {
+		blockBytes = new ByteArrayOutputStream();
+		blockOut = new ObjectOutputStream(new DeflaterOutputStream(blockBytes,
+				new Deflater(Deflater.BEST_COMPRESSION)));
+		blockMatch = match;
+		blockFirstRound = round;
+		blockRounds = 0;
+	}
+
+	private void endBlock() throws IOException {
+		if (blockOut == null)
+			return;
+		blockOut.close();
+		byte[] bytes = blockBytes.toByteArray();
+		index.add(new long[] { blockMatch, blockFirstRound, blockRounds,
+				file.getFilePointer() });
+		file.writeInt(bytes.length);
+		file.write(bytes);
+		blockOut = null;
+		blockBytes = null;
+	}
+}
@@ -0,0 +1,57 @@
+package replay;
+
+import java.io.File;
+import java.util.Random;
+
+/*
+ * Times seeking around a packed match with a SnapshotTimeline: jumping to
+ * the last round, stepping back from there, and scrubbing to random rounds.
+ * It replays into a UnitState, since the viewer's DrawState wants a display
+ * to load its images; the timeline works the same way with either.
+ *
+ * Usage: SeekTimes file.rmz [interval] [maxSnapshots]
+ */
+public class SeekTimes {
+	private final static int STEPS = 50;
+	private final static int JUMPS = 200;
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: SeekTimes file.rmz [interval] [maxSnapshots]");
+			return;
+		}
+		int interval = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int maxSnapshots = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+		try {
+			PackedMatchReader reader = new PackedMatchReader(new File(args[0]));
+			SnapshotTimeline<UnitState> timeline = new SnapshotTimeline<UnitState>(
+					reader, 0, UnitState.FACTORY, interval, maxSnapshots);
+			int rounds = timeline.getNumRounds();
+
+			long start = System.nanoTime();
+			timeline.setRound(rounds);
+			report("seek to round " + rounds, start, 1);
+
+			start = System.nanoTime();
+			for (int i = 0; i < STEPS && timeline.getRound() > 0; i++)
+				timeline.setRound(timeline.getRound() - 1);
+			report("step back", start, STEPS);
+
+			Random random = new Random(1);
+			start = System.nanoTime();
+			for (int i = 0; i < JUMPS; i++)
+				timeline.setRound(random.nextInt(rounds + 1));
+			report("jump to a random round", start, JUMPS);
+			reader.close();
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+
+	private static void report(String what, long start, int count) {
+		System.out.println(String.format("%-26s %10.2f ms", what,
+				(System.nanoTime() - start) / 1e6 / count));
+	}
+}
@@ -0,0 +1,129 @@
+package replay;
+
+import java.io.IOException;
+import java.util.*;
+
+import battlecode.client.viewer.GameState;
+import battlecode.client.viewer.GameStateFactory;
+import battlecode.serial.RoundDelta;
+import battlecode.serial.RoundStats;
+
+/*
+ * Moves a client GameState to any round of a packed match without replaying
+ * it from round 0. A copy of the state is kept every interval rounds, at
+ * most maxSnapshots of them, least recently used first out; setRound()
+ * starts from the closest copy at or before the round asked for and reads
+ * only the rounds after it from the file.
+ *
+ * Stepping backwards is therefore at most interval rounds of work, and
+ * scrubbing around a part of the match already visited is cheap. The state
+ * for round n is the state after rounds 0 to n-1 have been applied.
+ */
+public class SnapshotTimeline<E extends GameState> {
+	private final PackedMatchReader reader;
+	private final int match;
+	private final GameStateFactory<E> factory;
+	private final int interval;
+	private final int rounds;
+
+	// the state before round 0, always kept
+	private final E first;
+	// later snapshots by round, in least recently used order
+	private final LinkedHashMap<Integer, E> snapshots;
+
+	private E current;
+	private int currentRound;
+
+	// the round whose RoundDelta the reader returns next, or -1
+	private int readerRound = -1;
+
+	public SnapshotTimeline(PackedMatchReader reader, int match,
+			GameStateFactory<E> factory, int interval, final int maxSnapshots)
+			throws IOException {
+		this.reader = reader;
+		this.match = match;
+		this.factory = factory;
+		this.interval = interval;
+		this.rounds = reader.getRoundCount(match);
+		this.snapshots = new LinkedHashMap<Integer, E>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Integer, E> eldest) {
+				return size() > maxSnapshots;
+			}
+		};
+
+		first = factory.createState(reader.getHeader(match));
+		current = factory.cloneState(first);
+		currentRound = 0;
+	}
+
+	public int getNumRounds() {
+		return rounds;
+	}
+
+	public int getRound() {
+		return currentRound;
+	}
+
+	public E getState() {
+		return current;
+	}
+
+	/*
+	 * Brings the state to the given round.
+	 */
+	public void setRound(int round) throws IOException {
+		if (round < 0)
+			round = 0;
+		if (round > rounds)
+			round = rounds;
+		if (round == currentRound)
+			return;
+
+		// replaying forwards from where we are beats any older snapshot
+		int from = currentRound;
+		if (round < currentRound || round - currentRound > interval) {
+			int best = 0;
+			for (Integer r : snapshots.keySet()) {
+				int snapshot = r.intValue();
+				if (snapshot <= round && snapshot > best)
+					best = snapshot;
+			}
+			if (round < currentRound || best > currentRound) {
+				// get() also marks the snapshot as recently used
+				E start = best == 0 ? first : snapshots.get(Integer
+						.valueOf(best));
+				current = factory.cloneState(start);
+				currentRound = best;
+				from = best;
+			}
+		}
+
+		if (from == round)
+			return;
+		if (readerRound != from)
+			reader.seek(match, from);
+		readerRound = round;
+		while (currentRound < round) {
+			Object o;
+			while (!((o = reader.readObject()) instanceof RoundDelta)) {
+				if (o == null) {
+					readerRound = -1;
+					throw new IOException("match " + match + " ends before round "
+							+ round);
+				}
+			}
+			current.apply((RoundDelta) o);
+			Object next = reader.peek();
+			if (next instanceof RoundStats)
+				current.apply((RoundStats) reader.readObject());
+			currentRound++;
+
+			if (currentRound % interval == 0
+					&& !snapshots.containsKey(Integer.valueOf(currentRound)))
+				snapshots.put(Integer.valueOf(currentRound), factory
+						.cloneState(current));
+		}
+	}
+}
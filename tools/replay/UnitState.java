@@ -0,0 +1,169 @@
+package replay;
+
+import java.util.*;
+
+import battlecode.client.viewer.GameState;
+import battlecode.client.viewer.GameStateFactory;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.serial.MatchHeader;
+import battlecode.world.signal.*;
+
+/*
+ * A GameState that only keeps track of the robots on the map: their type,
+ * team, location and energon, and who owns each tower. Unlike the viewer's
+ * DrawState it needs no images or display, so tools can replay matches with
+ * it headless.
+ */
+public class UnitState extends GameState {
+	public final static class Unit {
+		public final int id;
+		public Team team;
+		public RobotType type;
+		public MapLocation location;
+		public double energon;
+
+		Unit(int id, Team team, RobotType type, MapLocation location) {
+			this.id = id;
+			this.team = team;
+			this.type = type;
+			this.location = location;
+		}
+
+		Unit(Unit other) {
+			this(other.id, other.team, other.type, other.location);
+			energon = other.energon;
+		}
+	}
+
+	public final static GameStateFactory<UnitState> FACTORY =
+			new GameStateFactory<UnitState>() {
+		public UnitState createState(MatchHeader header) {
+			return new UnitState();
+		}
+
+		public UnitState cloneState(UnitState state) {
+			UnitState clone = new UnitState();
+			copyState(state, clone);
+			return clone;
+		}
+
+		public void copyState(UnitState src, UnitState dst) {
+			dst.units.clear();
+			for (Unit u : src.units.values())
+				dst.units.put(Integer.valueOf(u.id), new Unit(u));
+			dst.round = src.round;
+		}
+	};
+
+	private final Map<Integer, Unit> units = new LinkedHashMap<Integer, Unit>();
+	private int round = 0;
+
+	public int getRound() {
+		return round;
+	}
+
+	public Collection<Unit> getUnits() {
+		return units.values();
+	}
+
+	public Unit getUnit(int id) {
+		return units.get(Integer.valueOf(id));
+	}
+
+	public int count(Team team, RobotType type) {
+		int count = 0;
+		for (Unit u : units.values()) {
+			if (u.team == team && (type == null || u.type == type))
+				count++;
+		}
+		return count;
+	}
+
+	protected void updateRound() {
+		round++;
+	}
+
+	public Void visitSpawnSignal(SpawnSignal s) {
+		units.put(Integer.valueOf(s.getRobotID()), new Unit(s.getRobotID(), s
+				.getTeam(), s.getType(), s.getLoc()));
+		return null;
+	}
+
+	public Void visitDeathSignal(DeathSignal s) {
+		units.remove(Integer.valueOf(s.getObjectID()));
+		return null;
+	}
+
+	public Void visitMovementSignal(MovementSignal s) {
+		Unit u = getUnit(s.getRobotID());
+		if (u != null)
+			u.location = s.getNewLoc();
+		return null;
+	}
+
+	public Void visitMovementOverrideSignal(MovementOverrideSignal s) {
+		Unit u = getUnit(s.getRobotID());
+		if (u != null)
+			u.location = s.getNewLoc();
+		return null;
+	}
+
+	public Void visitEvolutionSignal(EvolutionSignal s) {
+		Unit u = getUnit(s.getRobotID());
+		if (u != null)
+			u.type = s.getType();
+		return null;
+	}
+
+	public Void visitEnergonChangeSignal(EnergonChangeSignal s) {
+		int[] ids = s.getRobotIDs();
+		double[] energon = s.getEnergon();
+		for (int i = 0; i < ids.length; i++) {
+			Unit u = getUnit(ids[i]);
+			if (u != null)
+				u.energon = energon[i];
+		}
+		return null;
+	}
+
+	public Void visitAttackSignal(AttackSignal s) {
+		return null;
+	}
+
+	public Void visitBroadcastSignal(BroadcastSignal s) {
+		return null;
+	}
+
+	public Void visitEnergonTransferSignal(EnergonTransferSignal s) {
+		return null;
+	}
+
+	public Void visitIndicatorStringSignal(IndicatorStringSignal s) {
+		return null;
+	}
+
+	public Void visitControlBitsSignal(ControlBitsSignal s) {
+		return null;
+	}
+
+	public Void visitSetDirectionSignal(SetDirectionSignal s) {
+		return null;
+	}
+
+	public Void visitTowerRespawnSignal(TowerRespawnSignal s) {
+		Unit u = getUnit(s.getTowerID());
+		if (u != null)
+			u.team = s.getRespawnTeam();
+		return null;
+	}
+
+	public Void visitBytecodesUsedSignal(BytecodesUsedSignal s) {
+		return null;
+	}
+
+	public Void visitAwesomenessSignal(AwesomenessSignal s) {
+		return null;
+	}
+}
@@ -0,0 +1,408 @@
+package runner;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+import battlecode.common.Team;
+import battlecode.serial.MatchFooter;
+import battlecode.serial.RoundDelta;
+
+/*
+ * Plays one team against every other team under teams/ on every map under
+ * maps/, spread over a pool of worker processes, and writes one CSV line per
+ * match.
+ *
+ * Every match is its own battlecode.main.Main run in headless mode, with a
+ * config file of its own built from bc.conf, so the engine's static state
+ * never has to be shared. The result is read back out of the match file the
+ * run saves.
+ *
+ * A match is marked as errored, and left out of the win count, if the run
+ * exits abnormally, leaves no result, logs an engine error (a team that
+ * cannot be loaded or instrumented, for one), or ends within MIN_ROUNDS
+ * rounds, which only happens when a team fails to start. Robots that died
+ * of an exception are counted in the CSV either way.
+ *
+ * Usage: BatchRunner [-team name] [-opponents a,b,...] [-maps x,y,...]
+ *                    [-workers n] [-out results.csv] [-keep]
+ */
+public class BatchRunner {
+	private final static String DEFAULT_TEAM = "team000";
+
+	// what the engine logs for its own errors and for robots that throw
+	private final static String ENGINE_ERROR = "~~~~~~~ERROR~~~~~~~";
+	private final static String ROBOT_EXCEPTION = "died because of";
+
+	// no match between two working teams is over this soon
+	private final static int MIN_ROUNDS = 10;
+
+	private final static List<String> VALUE_OPTIONS = Arrays.asList("-team",
+			"-opponents", "-maps", "-workers", "-out");
+
+	private final File base;
+	private final File work;
+	private final String team;
+	private final List<String> opponents;
+	private final List<String> maps;
+	private final int workers;
+	private final File out;
+	private final boolean keepFiles;
+
+	public BatchRunner(File base, String team, List<String> opponents,
+			List<String> maps, int workers, File out, boolean keepFiles) {
+		this.base = base;
+		this.work = new File(base, "matches" + File.separator + "batch");
+		this.team = team;
+		this.opponents = opponents;
+		this.maps = maps;
+		this.workers = workers;
+		this.out = out;
+		this.keepFiles = keepFiles;
+	}
+
+	/*
+	 * One match and, once it has been played, how it went.
+	 */
+	private static class Match {
+		final String map;
+		final String teamA, teamB;
+		String winner = "";
+		int rounds = 0;
+		long millis = 0;
+		int exitCode = 0;
+		int engineErrors = 0;
+		int robotExceptions = 0;
+		// why the match does not count, or null
+		String error = null;
+
+		Match(String map, String teamA, String teamB) {
+			this.map = map;
+			this.teamA = teamA;
+			this.teamB = teamB;
+		}
+	}
+
+	public void run() throws IOException, InterruptedException {
+		work.mkdirs();
+		final Properties conf = loadConf();
+
+		List<Match> matches = new ArrayList<Match>();
+		for (String map : maps)
+			for (String opponent : opponents)
+				matches.add(new Match(map, team, opponent));
+
+		System.out.println("Running " + matches.size() + " matches on "
+				+ workers + " workers");
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<Match>> results = new ArrayList<Future<Match>>();
+		for (final Match match : matches) {
+			results.add(pool.submit(new Callable<Match>() {
+				public Match call() throws Exception {
+					return play(match, conf);
+				}
+			}));
+		}
+		pool.shutdown();
+
+		PrintWriter csv = new PrintWriter(new FileWriter(out));
+		try {
+			csv.println("map,team_a,team_b,winner,rounds,seconds,exit_code,"
+					+ "robot_exceptions,error");
+			int wins = 0;
+			int errors = 0;
+			for (Future<Match> result : results) {
+				Match m;
+				try {
+					m = result.get();
+				} catch (ExecutionException e) {
+					System.out.println("Caught Exception:");
+					e.getCause().printStackTrace();
+					continue;
+				}
+				if (m.error != null)
+					errors++;
+				else if (m.winner.equals(m.teamA))
+					wins++;
+				csv.println(m.map + "," + m.teamA + "," + m.teamB + ","
+						+ m.winner + "," + m.rounds + ","
+						+ (m.millis / 1000.0) + "," + m.exitCode + ","
+						+ m.robotExceptions + ","
+						+ (m.error == null ? "" : m.error));
+			}
+			System.out.println(team + " won " + wins + " of "
+					+ (matches.size() - errors) + ", " + errors
+					+ " errored, results in " + out);
+		} finally {
+			csv.close();
+		}
+	}
+
+	/*
+	 * Plays a single match in its own JVM and reads the result from the
+	 * match file it saved.
+	 */
+	private Match play(Match m, Properties conf) throws IOException,
+			InterruptedException {
+		String name = m.teamA + "-" + m.teamB + "-" + m.map;
+		File confFile = new File(work, name + ".conf");
+		File saveFile = new File(work, name + ".rms");
+		File logFile = new File(work, name + ".log");
+		saveFile.delete();
+
+		Properties matchConf = new Properties();
+		matchConf.putAll(conf);
+		matchConf.setProperty("bc.server.mode", "headless");
+		matchConf.setProperty("bc.server.map-path", new File(base, "maps")
+				.getPath());
+		matchConf.setProperty("bc.game.maps", m.map);
+		matchConf.setProperty("bc.game.team-a", m.teamA);
+		matchConf.setProperty("bc.game.team-b", m.teamB);
+		matchConf.setProperty("bc.server.save-file", saveFile.getPath());
+		OutputStream confOut = new FileOutputStream(confFile);
+		try {
+			matchConf.store(confOut, "batch match " + name);
+		} finally {
+			confOut.close();
+		}
+
+		List<String> command = new ArrayList<String>();
+		command.add(new File(System.getProperty("java.home"), "bin"
+				+ File.separator + "java").getPath());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("-Dbc.server.mode=headless");
+		command.add("-Dbc.server.map-path=" + new File(base, "maps").getPath());
+		command.add("battlecode.main.Main");
+		command.add("-c");
+		command.add(confFile.getPath());
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(base);
+		builder.redirectErrorStream(true);
+
+		long start = System.currentTimeMillis();
+		Process process = builder.start();
+		copy(process.getInputStream(), logFile);
+		m.exitCode = process.waitFor();
+		m.millis = System.currentTimeMillis() - start;
+
+		readResult(m, saveFile);
+		readLog(m, logFile);
+		m.error = error(m);
+		System.out.println(name + ": "
+				+ (m.error != null ? "error, " + m.error : m.winner + " in "
+						+ m.rounds + " rounds"));
+
+		if (!keepFiles) {
+			confFile.delete();
+			if (m.error == null) {
+				saveFile.delete();
+				logFile.delete();
+			}
+		}
+		return m;
+	}
+
+	/*
+	 * Counts the rounds in a saved match and looks up the winner. Leaves the
+	 * winner empty if the file is missing or cut short.
+	 */
+	private static void readResult(Match m, File saveFile) {
+		if (!saveFile.exists())
+			return;
+		try {
+			ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+					new BufferedInputStream(new FileInputStream(saveFile))));
+			try {
+				while (true) {
+					Object o = in.readObject();
+					if (o instanceof RoundDelta)
+						m.rounds++;
+					else if (o instanceof MatchFooter) {
+						Team winner = ((MatchFooter) o).getWinner();
+						if (winner == Team.A)
+							m.winner = m.teamA;
+						else if (winner == Team.B)
+							m.winner = m.teamB;
+						else
+							m.winner = String.valueOf(winner);
+					}
+				}
+			} finally {
+				in.close();
+			}
+		} catch (EOFException e) {
+			// end of the match file
+		} catch (Exception e) {
+			System.out.println("Caught Exception reading " + saveFile + ":");
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Counts the engine errors and robot exceptions in a match's log.
+	 */
+	private static void readLog(Match m, File logFile) {
+		try {
+			BufferedReader in = new BufferedReader(new FileReader(logFile));
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.indexOf(ENGINE_ERROR) != -1)
+						m.engineErrors++;
+					else if (line.indexOf(ROBOT_EXCEPTION) != -1)
+						m.robotExceptions++;
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.out.println("Caught Exception reading " + logFile + ":");
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Why a played match does not count, or null if it does.
+	 */
+	private static String error(Match m) {
+		if (m.exitCode != 0)
+			return "exit code " + m.exitCode;
+		if (m.engineErrors > 0)
+			return m.engineErrors + " engine errors";
+		if (m.winner.length() == 0)
+			return "no result";
+		if (m.rounds <= MIN_ROUNDS)
+			return "ended in round " + m.rounds;
+		return null;
+	}
+
+	private static void copy(InputStream in, File to) throws IOException {
+		OutputStream log = new BufferedOutputStream(new FileOutputStream(to));
+		try {
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1)
+				log.write(buf, 0, n);
+		} finally {
+			log.close();
+			in.close();
+		}
+	}
+
+	/*
+	 * The settings in bc.conf, minus the match list which we supply.
+	 */
+	private Properties loadConf() throws IOException {
+		Properties conf = new Properties();
+		File file = new File(base, "bc.conf");
+		if (file.exists()) {
+			InputStream in = new FileInputStream(file);
+			try {
+				conf.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		return conf;
+	}
+
+	/*
+	 * Every team directory other than the one being tested.
+	 */
+	private static List<String> findTeams(File teamsDir, String team) {
+		List<String> teams = new ArrayList<String>();
+		File[] dirs = teamsDir.listFiles();
+		if (dirs != null) {
+			for (File dir : dirs) {
+				if (dir.isDirectory() && !dir.getName().equals(team))
+					teams.add(dir.getName());
+			}
+		}
+		Collections.sort(teams);
+		return teams;
+	}
+
+	private static List<String> findMaps(File mapsDir) {
+		List<String> maps = new ArrayList<String>();
+		File[] files = mapsDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(".xml"))
+					maps.add(name.substring(0, name.length() - 4));
+			}
+		}
+		Collections.sort(maps);
+		return maps;
+	}
+
+	private static List<String> split(String list) {
+		List<String> items = new ArrayList<String>();
+		for (String item : list.split(",")) {
+			item = item.trim();
+			if (item.length() > 0)
+				items.add(item);
+		}
+		return items;
+	}
+
+	public static void main(String[] args) {
+		File base = new File(System.getProperty("user.dir"));
+		String team = DEFAULT_TEAM;
+		String opponents = null;
+		String maps = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		File out = new File(base, "matches" + File.separator + "batch.csv");
+		boolean keepFiles = false;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-keep")) {
+				keepFiles = true;
+				continue;
+			}
+			if (!VALUE_OPTIONS.contains(arg)) {
+				System.out.println("Unknown option " + arg);
+				return;
+			}
+			if (i + 1 >= args.length) {
+				System.out.println("Missing value for " + arg);
+				return;
+			}
+			String value = args[++i];
+			// ant passes unset options along as empty values
+			if (value.length() == 0)
+				continue;
+
+			if (arg.equals("-team"))
+				team = value;
+			else if (arg.equals("-opponents"))
+				opponents = value;
+			else if (arg.equals("-maps"))
+				maps = value;
+			else if (arg.equals("-workers"))
+				workers = Integer.parseInt(value);
+			else
+				out = new File(value);
+		}
+
+		List<String> opponentList = opponents == null ? findTeams(new File(
+				base, "teams"), team) : split(opponents);
+		List<String> mapList = maps == null ? findMaps(new File(base, "maps"))
+				: split(maps);
+		if (workers < 1)
+			workers = 1;
+
+		try {
+			out.getAbsoluteFile().getParentFile().mkdirs();
+			new BatchRunner(base, team, opponentList, mapList, workers, out,
+					keepFiles).run();
+		} catch (Exception e) {
+			System.out.println("Caught Exception:");
+			e.printStackTrace();
+		}
+	}
+}